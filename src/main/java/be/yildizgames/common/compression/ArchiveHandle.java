@@ -0,0 +1,94 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An archive kept open, its entry table is read once when opening and reused by every operation until it is closed.
+ * Use it when the same archive is read many times, to avoid opening and parsing it on each call.
+ * Implementations are thread safe.
+ *
+ * @author Grégory Van den Borre
+ */
+public interface ArchiveHandle extends FileInfoRetriever, AutoCloseable {
+
+    /**
+     * Provide the names of all the entries, directories included, in the archive order.
+     *
+     * @return The entry names, from the entry table.
+     */
+    List<String> entries();
+
+    /**
+     * Check if an entry exists, this is a lookup in the entry table, the archive is not read.
+     *
+     * @param entry Full name of the entry in the archive.
+     * @return true if the entry exists.
+     */
+    boolean contains(String entry);
+
+    /**
+     * Provide the content of an entry without copying it, when the implementation supports it.
+     * This is the case for the stored (not compressed) entries of a memory mapped zip archive.
+     *
+     * @param entry Full name of the entry in the archive.
+     * @return A read only buffer with the entry content, or empty if the content cannot be provided without copy.
+     * @throws IllegalArgumentException If the entry does not exist.
+     */
+    default Optional<ByteBuffer> storedContent(String entry) {
+        if (!contains(entry)) {
+            throw new IllegalArgumentException("Entry not found: " + entry);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Extract a single file from the archive, only this entry is read.
+     *
+     * @param fileToExtract Full name of the entry in the archive.
+     * @param destination   Directory where the file will be extracted, keeping its path in the archive.
+     * @throws IllegalArgumentException If the entry does not exist.
+     * @throws IllegalStateException    If the file cannot be extracted.
+     */
+    void unpack(String fileToExtract, Path destination);
+
+    /**
+     * Extract all the archive content.
+     *
+     * @param destination Directory where the content will be extracted, keeping the paths in the archive.
+     * @throws IllegalStateException If the content cannot be extracted.
+     */
+    void unpack(Path destination);
+
+    /**
+     * Extract a directory and all its content.
+     *
+     * @param directoryToExtract Directory to extract.
+     * @param destination        Directory where the directory will be extracted, keeping its path in the archive.
+     * @throws IllegalStateException If the content cannot be extracted.
+     */
+    void unpackDirectoryToDirectory(String directoryToExtract, Path destination);
+
+    /**
+     * Release the archive.
+     */
+    @Override
+    void close();
+}
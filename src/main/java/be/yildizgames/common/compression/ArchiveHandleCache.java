@@ -0,0 +1,296 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression;
+
+import be.yildizgames.common.hashing.Algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded cache of opened archives, to serve many reads from the same archives without opening and parsing them each time.
+ * Archives are identified by their path, size and last modification time, so a modified archive is opened again.
+ * The least recently used archives are evicted when the cache is full, and archives not used for longer than the idle
+ * time are evicted on the next acquisition.
+ * Each acquisition returns a handle that must be closed by the caller, an evicted archive is only closed after its
+ * last handle is closed.
+ * This class is thread safe.
+ *
+ * @author Grégory Van den Borre
+ */
+public class ArchiveHandleCache implements AutoCloseable {
+
+    /**
+     * Maximum number of opened archives.
+     */
+    private final int maxSize;
+
+    /**
+     * Time after which an unused archive is evicted, in nanoseconds.
+     */
+    private final long maxIdle;
+
+    /**
+     * Opened archives, in access order.
+     */
+    private final Map<Key, CachedArchive> archives = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxSize Maximum number of archives kept open, must be positive.
+     * @param maxIdle Time after which an unused archive is closed.
+     */
+    public ArchiveHandleCache(int maxSize, Duration maxIdle) {
+        super();
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.maxIdle = Objects.requireNonNull(maxIdle).toNanos();
+    }
+
+    /**
+     * Provide an opened archive, from the cache if it is already opened and not modified since.
+     *
+     * @param archive Archive to open.
+     * @return A handle on the archive, to be closed by the caller once done, closing it does not close the cached archive.
+     * @throws IllegalArgumentException If the archive type is not supported.
+     * @throws IllegalStateException If the archive cannot be opened.
+     */
+    public final ArchiveHandle acquire(Path archive) {
+        var key = Key.of(archive);
+        synchronized (this) {
+            evictIdle();
+            var cached = this.archives.get(key);
+            if (cached != null) {
+                this.hits++;
+                return cached.lease();
+            }
+            this.misses++;
+        }
+        var opened = new CachedArchive(CompressionFactory.open(archive));
+        synchronized (this) {
+            var cached = this.archives.get(key);
+            if (cached != null) {
+                opened.handle.close();
+                return cached.lease();
+            }
+            this.archives.entrySet().removeIf(e -> {
+                if (e.getKey().path.equals(key.path)) {
+                    evict(e.getValue());
+                    return true;
+                }
+                return false;
+            });
+            this.archives.put(key, opened);
+            var iterator = this.archives.values().iterator();
+            while (this.archives.size() > this.maxSize) {
+                evict(iterator.next());
+                iterator.remove();
+            }
+            return opened.lease();
+        }
+    }
+
+    /**
+     * Evict the archives not used for longer than the idle time.
+     */
+    public final synchronized void evictIdle() {
+        var now = System.nanoTime();
+        this.archives.values().removeIf(a -> {
+            if (a.references == 0 && now - a.lastUsed > this.maxIdle) {
+                evict(a);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * @return The number of acquisitions served by an already opened archive.
+     */
+    public final synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return The number of acquisitions that required to open the archive.
+     */
+    public final synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return The number of archives removed from the cache.
+     */
+    public final synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * @return The number of archives currently in the cache.
+     */
+    public final synchronized int getSize() {
+        return this.archives.size();
+    }
+
+    /**
+     * Evict all the archives, archives still in use are closed once their last handle is closed.
+     */
+    @Override
+    public final synchronized void close() {
+        this.archives.values().forEach(this::evict);
+        this.archives.clear();
+    }
+
+    private void evict(CachedArchive archive) {
+        this.evictions++;
+        archive.evicted = true;
+        if (archive.references == 0) {
+            archive.handle.close();
+        }
+    }
+
+    private synchronized void release(CachedArchive archive) {
+        archive.references--;
+        archive.lastUsed = System.nanoTime();
+        if (archive.evicted && archive.references == 0) {
+            archive.handle.close();
+        }
+    }
+
+    /**
+     * Identify an archive version.
+     */
+    private record Key(Path path, long size, FileTime lastModified) {
+
+        private static Key of(Path archive) {
+            var path = archive.toAbsolutePath().normalize();
+            try {
+                var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new Key(path, attributes.size(), attributes.lastModifiedTime());
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open " + archive, e);
+            }
+        }
+    }
+
+    /**
+     * An opened archive and its usage, guarded by the cache lock.
+     */
+    private final class CachedArchive {
+
+        private final ArchiveHandle handle;
+
+        private int references;
+
+        private boolean evicted;
+
+        private long lastUsed = System.nanoTime();
+
+        private CachedArchive(ArchiveHandle handle) {
+            super();
+            this.handle = handle;
+        }
+
+        private ArchiveHandle lease() {
+            this.references++;
+            return new Lease(this);
+        }
+    }
+
+    /**
+     * Handle given to a caller, closing it releases the cached archive.
+     */
+    private final class Lease implements ArchiveHandle {
+
+        private final CachedArchive archive;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(CachedArchive archive) {
+            super();
+            this.archive = archive;
+        }
+
+        private ArchiveHandle handle() {
+            if (this.closed.get()) {
+                throw new IllegalStateException("Handle is closed.");
+            }
+            return this.archive.handle;
+        }
+
+        @Override
+        public List<String> entries() {
+            return handle().entries();
+        }
+
+        @Override
+        public boolean contains(String entry) {
+            return handle().contains(entry);
+        }
+
+        @Override
+        public Optional<ByteBuffer> storedContent(String entry) {
+            return handle().storedContent(entry);
+        }
+
+        @Override
+        public void unpack(String fileToExtract, Path destination) {
+            handle().unpack(fileToExtract, destination);
+        }
+
+        @Override
+        public void unpack(Path destination) {
+            handle().unpack(destination);
+        }
+
+        @Override
+        public void unpackDirectoryToDirectory(String directoryToExtract, Path destination) {
+            handle().unpackDirectoryToDirectory(directoryToExtract, destination);
+        }
+
+        @Override
+        public List<FileInfo> getFileInfo(Algorithm... algorithm) {
+            return handle().getFileInfo(algorithm);
+        }
+
+        @Override
+        public void close() {
+            if (this.closed.compareAndSet(false, true)) {
+                release(this.archive);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Merge several archives in a single one, copying the entries without extracting and compressing them again.
+ *
+ * @author Grégory Van den Borre
+ */
+public interface ArchiveMerger {
+
+    /**
+     * Merge archives in a new one, the entries are written in the order of the archives.
+     * Directory entries present in several archives are written once, whatever the policy.
+     *
+     * @param archives    Archives to merge.
+     * @param destination Merged archive.
+     * @param policy      Policy to apply when a file entry name exists in several archives.
+     * @throws IllegalArgumentException If the policy is {@link CollisionPolicy#FAIL} and an entry name exists in several archives, nothing is written.
+     * @throws IllegalStateException If an archive cannot be read or the destination cannot be written.
+     */
+    void merge(List<Path> archives, Path destination, CollisionPolicy policy);
+
+    /**
+     * What to do when an entry name exists in several archives.
+     */
+    enum CollisionPolicy {
+
+        /**
+         * Reject the merge.
+         */
+        FAIL,
+
+        /**
+         * Keep the entry of the first archive containing it.
+         */
+        KEEP_FIRST,
+
+        /**
+         * Keep the entry of the last archive containing it.
+         */
+        KEEP_LAST
+    }
+}
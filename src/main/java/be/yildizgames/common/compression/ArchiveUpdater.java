@@ -0,0 +1,38 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Update an existing archive, without extracting and compressing again the entries which are not modified.
+ *
+ * @author Grégory Van den Borre
+ */
+public interface ArchiveUpdater {
+
+    /**
+     * Add files to an existing archive, the entries with the same name are replaced.
+     * The entries are named as with {@link Archiver#pack(List, Path)}.
+     * The archive is rewritten in a temporary file which then replaces it, so it is left untouched if the update fails.
+     *
+     * @param archive Archive to update.
+     * @param files   Files and directories to add or replace.
+     * @throws IllegalStateException If the archive cannot be read or the files cannot be compressed.
+     */
+    void update(Path archive, List<Path> files);
+}
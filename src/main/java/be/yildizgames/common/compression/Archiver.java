@@ -15,6 +15,11 @@
 
 package be.yildizgames.common.compression;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -38,4 +43,44 @@ public interface Archiver {
      */
     void pack(List<Path> files, Path destination);
 
+    /**
+     * Compress several files in an archive written to a stream, for example an HTTP response.
+     * The default implementation packs in a temporary file and copies it to the stream once complete, formats
+     * that can be written without seeking override it to send the first bytes while the next files are compressed.
+     * The stream is not closed.
+     *
+     * @param files       Files to compress.
+     * @param destination Stream receiving the archive.
+     * @throws IllegalStateException If the files cannot be read or the archive cannot be written.
+     */
+    default void pack(List<Path> files, OutputStream destination) {
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile("yildiz-archive", ".tmp");
+            pack(files, temporary);
+            Files.copy(temporary, destination);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    System.getLogger(Archiver.class.getName()).log(System.Logger.Level.ERROR, "", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compress several files in an archive written to a channel.
+     * The channel is not closed.
+     *
+     * @param files       Files to compress.
+     * @param destination Channel receiving the archive.
+     * @throws IllegalStateException If the files cannot be read or the archive cannot be written.
+     */
+    default void pack(List<Path> files, WritableByteChannel destination) {
+        pack(files, Channels.newOutputStream(destination));
+    }
 }
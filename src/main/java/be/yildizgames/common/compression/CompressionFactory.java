@@ -17,19 +17,26 @@ package be.yildizgames.common.compression;
 
 import be.yildizgames.common.compression.filetype.FileTypeCategories;
 import be.yildizgames.common.compression.filetype.FileTypes;
+import be.yildizgames.common.compression.sevenzip.SevenZipArchiveHandle;
 import be.yildizgames.common.compression.sevenzip.SevenZipArchiver;
 import be.yildizgames.common.compression.sevenzip.SevenZipFileInfoRetriever;
 import be.yildizgames.common.compression.sevenzip.SevenZipNativeArchiver;
 import be.yildizgames.common.compression.sevenzip.SevenZipNativeUnpacker;
+import be.yildizgames.common.compression.sevenzip.SevenZipStreamUnpacker;
 import be.yildizgames.common.compression.sevenzip.SevenZipUnpacker;
+import be.yildizgames.common.compression.zip.MappedZipFile;
+import be.yildizgames.common.compression.zip.ZipArchiveHandle;
 import be.yildizgames.common.compression.zip.ZipArchiver;
 import be.yildizgames.common.compression.zip.ZipFileInfoRetriever;
+import be.yildizgames.common.compression.zip.ZipStreamUnpacker;
 import be.yildizgames.common.compression.zip.ZipUnpacker;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * This class is an entry point for this module, it exposes utilities: archivers, unpackers, file info.
@@ -43,7 +50,7 @@ public class CompressionFactory {
 
     private static final Unpacker ZIP_UNPACKER = new ZipUnpacker();
 
-    private static final Archiver ZIP_ARCHIVER = new ZipArchiver();
+    private static final ZipArchiver ZIP_ARCHIVER = new ZipArchiver();
 
     private static final Unpacker SEVENZIP_UNPACKER = new SevenZipUnpacker();
 
@@ -51,6 +58,10 @@ public class CompressionFactory {
     private static final Archiver SEVENZIP_NATIVE_ARCHIVER = new SevenZipNativeArchiver();
     private static final Unpacker SEVENZIP_NATIVE_UNPACKER = new SevenZipNativeUnpacker();
 
+    private static final StreamUnpacker ZIP_STREAM_UNPACKER = new ZipStreamUnpacker();
+
+    private static final StreamUnpacker SEVENZIP_STREAM_UNPACKER = new SevenZipStreamUnpacker();
+
     private CompressionFactory() {
         super();
     }
@@ -59,14 +70,117 @@ public class CompressionFactory {
         return ZIP_UNPACKER;
     }
 
+    /**
+     * Provide a zip unpacker extracting the archive entries in parallel.
+     *
+     * @param executor Executor running the extraction tasks, for example a fork join pool or a virtual thread executor.
+     * @return A new unpacker using the given executor.
+     */
+    public static Unpacker zipUnpacker(Executor executor) {
+        return new ZipUnpacker(Objects.requireNonNull(executor));
+    }
+
+    /**
+     * Provide a zip unpacker reading the archive from a stream, each entry is extracted as soon as it is received.
+     *
+     * @return The zip stream unpacker.
+     */
+    public static StreamUnpacker zipStreamUnpacker() {
+        return ZIP_STREAM_UNPACKER;
+    }
+
     public static Archiver zipArchiver() {
         return ZIP_ARCHIVER;
     }
 
+    /**
+     * Provide a zip archiver deflating the entries in parallel.
+     *
+     * @param threads Number of threads deflating the entries for each pack operation.
+     * @return A new archiver using the given number of threads.
+     */
+    public static Archiver zipArchiver(int threads) {
+        return new ZipArchiver(threads);
+    }
+
+    /**
+     * Provide a zip updater, adding or replacing files in an existing archive without recompressing the other entries.
+     *
+     * @return The zip updater.
+     */
+    public static ArchiveUpdater zipUpdater() {
+        return ZIP_ARCHIVER;
+    }
+
+    /**
+     * Provide a zip merger, copying the compressed entries of several archives in a single one.
+     *
+     * @return The zip merger.
+     */
+    public static ArchiveMerger zipMerger() {
+        return ZIP_ARCHIVER;
+    }
+
+    /**
+     * Provide a zip updater compressing the new files with specific settings.
+     *
+     * @param options Compression settings, the method must be default, store or deflate.
+     * @return A new updater using the given settings.
+     * @throws IllegalArgumentException If the method is not supported by the zip format.
+     */
+    public static ArchiveUpdater zipUpdater(CompressionOptions options) {
+        return new ZipArchiver(Objects.requireNonNull(options));
+    }
+
+    /**
+     * Provide a zip archiver with specific compression settings.
+     *
+     * @param options Compression settings, the method must be default, store or deflate.
+     * @return A new archiver using the given settings.
+     * @throws IllegalArgumentException If the method is not supported by the zip format.
+     */
+    public static Archiver zipArchiver(CompressionOptions options) {
+        return new ZipArchiver(Objects.requireNonNull(options));
+    }
+
     public static FileInfoRetriever zipFileInfo(Path path) {
         return new ZipFileInfoRetriever(Objects.requireNonNull(path));
     }
 
+    /**
+     * Provide a zip file info retriever hashing the entries in parallel.
+     *
+     * @param path     Path of the archive.
+     * @param executor Executor running the hashing tasks.
+     * @return A new retriever using the given executor.
+     */
+    public static FileInfoRetriever zipFileInfo(Path path, Executor executor) {
+        return new ZipFileInfoRetriever(Objects.requireNonNull(path), Objects.requireNonNull(executor));
+    }
+
+    /**
+     * Open a zip archive and keep it open, to extract many single files without parsing the archive each time.
+     *
+     * @param path Path of the archive.
+     * @return The opened archive, to be closed by the caller.
+     * @throws IllegalStateException If the archive cannot be opened.
+     */
+    public static ArchiveHandle openZip(Path path) {
+        return new ZipArchiveHandle(Objects.requireNonNull(path));
+    }
+
+    /**
+     * Open a zip archive by mapping it in memory, for archives read many times.
+     * Stored entries are available without copy with {@link ArchiveHandle#storedContent(String)}.
+     *
+     * @param path Path of the archive.
+     * @return The mapped archive, to be closed by the caller.
+     * @throws IllegalStateException If the archive cannot be opened.
+     */
+    public static ArchiveHandle openMappedZip(Path path) {
+        return new MappedZipFile(Objects.requireNonNull(path));
+    }
+
     public static Unpacker sevenZipUnpacker(boolean nativeImplementation) {
         if(nativeImplementation) {
             return SEVENZIP_NATIVE_UNPACKER;
@@ -74,6 +188,36 @@ public class CompressionFactory {
         return SEVENZIP_UNPACKER;
     }
 
+    /**
+     * Provide a pure Java 7z unpacker decoding the archive folders concurrently.
+     *
+     * @param executor Executor running the workers.
+     * @param workers  Number of workers, each one opening its own reader on the archive.
+     * @return A new unpacker using the given executor.
+     */
+    public static Unpacker sevenZipUnpacker(Executor executor, int workers) {
+        return new SevenZipUnpacker(Objects.requireNonNull(executor), workers);
+    }
+
+    /**
+     * Provide a 7z unpacker reading the archive from a stream, the archive is buffered before being extracted.
+     *
+     * @return The 7z stream unpacker.
+     */
+    public static StreamUnpacker sevenZipStreamUnpacker() {
+        return SEVENZIP_STREAM_UNPACKER;
+    }
+
+    /**
+     * Provide a 7z unpacker reading the archive from a stream, with a specific memory threshold.
+     *
+     * @param memoryThreshold Size up to which the archive is kept in memory, a bigger archive is spooled to a temporary file.
+     * @return A new 7z stream unpacker.
+     */
+    public static StreamUnpacker sevenZipStreamUnpacker(int memoryThreshold) {
+        return new SevenZipStreamUnpacker(memoryThreshold);
+    }
+
     public static Archiver sevenZipArchiver(boolean nativeImplementation) {
         if(nativeImplementation) {
             return SEVENZIP_NATIVE_ARCHIVER;
@@ -81,6 +225,34 @@ public class CompressionFactory {
         return SEVENZIP_ARCHIVER;
     }
 
+    /**
+     * Provide a native 7z archiver using several threads and bounded solid blocks.
+     *
+     * @param threads        Number of threads of the native encoder, 0 to use all the cores.
+     * @param solidBlockSize Maximum size in bytes of a solid block, 0 for no limit, a small block keeps the extraction
+     *                       of a single file fast.
+     * @return A new native archiver.
+     */
+    public static Archiver sevenZipNativeArchiver(int threads, long solidBlockSize) {
+        return new SevenZipNativeArchiver(CompressionOptions.defaults().withThreads(threads).withSolidBlockSize(solidBlockSize));
+    }
+
+    /**
+     * Provide a 7z archiver with specific compression settings.
+     *
+     * @param nativeImplementation true to use the native 7-Zip implementation, false to use the pure Java one.
+     * @param options              Compression settings.
+     * @return A new archiver using the given settings.
+     * @throws IllegalArgumentException If the settings are not supported by the implementation.
+     */
+    public static Archiver sevenZipArchiver(boolean nativeImplementation, CompressionOptions options) {
+        Objects.requireNonNull(options);
+        if(nativeImplementation) {
+            return new SevenZipNativeArchiver(options);
+        }
+        return new SevenZipArchiver(options);
+    }
+
     public static boolean isArchive(Path path) {
         try {
             return FileTypeCategories.ARCHIVES.is(Files.newInputStream(Objects.requireNonNull(path))).isPresent();
@@ -138,6 +310,45 @@ public class CompressionFactory {
         };
     }
 
+    /**
+     * Open an archive and keep it open, its headers and entry table are parsed once and reused by all the extractions,
+     * listings and hash computations done with the returned handle.
+     *
+     * @param path Path of the archive.
+     * @return The opened archive, to be closed by the caller.
+     * @throws IllegalArgumentException If the archive type is not supported.
+     * @throws IllegalStateException If the archive cannot be opened.
+     */
+    public static ArchiveHandle open(Path path) {
+        return switch (getType(path)) {
+            case SEVEN_ZIP -> new SevenZipArchiveHandle(path);
+            case ZIP -> new ZipArchiveHandle(path);
+            default -> throw new IllegalArgumentException("Unknown extension for file: " + path.getFileName().toString());
+        };
+    }
+
+    /**
+     * Provide the process wide cache of opened archives, it keeps up to 256 archives open, and closes them after
+     * 5 minutes without use.
+     *
+     * @return The shared cache.
+     */
+    public static ArchiveHandleCache handleCache() {
+        return SharedCache.INSTANCE;
+    }
+
+    /**
+     * Open an archive through the process wide cache, an archive already opened and not modified since is reused.
+     *
+     * @param path Path of the archive.
+     * @return A handle on the archive, to be closed by the caller once done, closing it does not close the cached archive.
+     * @throws IllegalArgumentException If the archive type is not supported.
+     * @throws IllegalStateException If the archive cannot be opened.
+     */
+    public static ArchiveHandle openCached(Path path) {
+        return SharedCache.INSTANCE.acquire(Objects.requireNonNull(path));
+    }
+
     public static FileInfoRetriever sevenZipFileInfo(Path path) {
         return new SevenZipFileInfoRetriever(Objects.requireNonNull(path));
     }
@@ -150,4 +361,12 @@ public class CompressionFactory {
         };
     }
 
+    /**
+     * Holder of the shared cache, created on first use only.
+     */
+    private static final class SharedCache {
+
+        private static final ArchiveHandleCache INSTANCE = new ArchiveHandleCache(256, Duration.ofMinutes(5));
+    }
+
 }
@@ -0,0 +1,166 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression;
+
+import java.util.Objects;
+
+/**
+ * Settings used by an archiver to compress, to favor speed or ratio depending on the workload.
+ * Each backend uses the settings it supports and ignores the others, unsupported methods are rejected when creating the archiver.
+ * <ul>
+ *     <li>Zip: method (store or deflate), level, threads and incompressible detection.</li>
+ *     <li>7z pure Java: method, level, dictionary size and incompressible detection.</li>
+ *     <li>7z native: method (store or LZMA2), level, solid block size and file number, and threads.</li>
+ * </ul>
+ * This class is immutable, the with methods return a modified copy.
+ *
+ * @param method          Compression method.
+ * @param level           Compression level from 0 (fastest) to 9 (best ratio), {@link #DEFAULT_LEVEL} to use the backend default.
+ * @param dictionarySize  Dictionary size in bytes for LZMA and LZMA2, 0 to use the default for the level.
+ * @param solid           true to compress several files in the same block, for a better ratio on many small similar files.
+ * @param solidBlockSize  Maximum size in bytes of a solid block, 0 for no limit.
+ * @param solidFiles      Maximum number of files in a solid block, 0 for no limit.
+ * @param threads         Number of threads to use, 0 to use the backend default.
+ * @param incompressible  How to detect the already compressed files, stored without compression to save time.
+ * @author Grégory Van den Borre
+ */
+public record CompressionOptions(Method method, int level, int dictionarySize, boolean solid, long solidBlockSize, int solidFiles,
+                                 int threads, IncompressibleDetection incompressible) {
+
+    /**
+     * Level value to let the backend use its default level.
+     */
+    public static final int DEFAULT_LEVEL = -1;
+
+    private static final CompressionOptions DEFAULTS = new CompressionOptions(Method.DEFAULT, DEFAULT_LEVEL, 0, true, 0, 0, 0, IncompressibleDetection.FILE_TYPE);
+
+    public CompressionOptions {
+        Objects.requireNonNull(method);
+        Objects.requireNonNull(incompressible);
+        if (level < DEFAULT_LEVEL || level > 9) {
+            throw new IllegalArgumentException("Level must be between 0 and 9: " + level);
+        }
+        if (dictionarySize < 0) {
+            throw new IllegalArgumentException("Dictionary size cannot be negative: " + dictionarySize);
+        }
+        if (solidBlockSize < 0) {
+            throw new IllegalArgumentException("Solid block size cannot be negative: " + solidBlockSize);
+        }
+        if (solidFiles < 0) {
+            throw new IllegalArgumentException("Solid file number cannot be negative: " + solidFiles);
+        }
+        if (threads < 0) {
+            throw new IllegalArgumentException("Thread number cannot be negative: " + threads);
+        }
+    }
+
+    /**
+     * Provide the default settings: default method and level for the format, solid with no block limit, default thread number,
+     * already compressed files detected by their type.
+     *
+     * @return The default settings.
+     */
+    public static CompressionOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public CompressionOptions withMethod(Method method) {
+        return new CompressionOptions(method, this.level, this.dictionarySize, this.solid, this.solidBlockSize, this.solidFiles, this.threads, this.incompressible);
+    }
+
+    public CompressionOptions withLevel(int level) {
+        return new CompressionOptions(this.method, level, this.dictionarySize, this.solid, this.solidBlockSize, this.solidFiles, this.threads, this.incompressible);
+    }
+
+    public CompressionOptions withDictionarySize(int dictionarySize) {
+        return new CompressionOptions(this.method, this.level, dictionarySize, this.solid, this.solidBlockSize, this.solidFiles, this.threads, this.incompressible);
+    }
+
+    public CompressionOptions withSolid(boolean solid) {
+        return new CompressionOptions(this.method, this.level, this.dictionarySize, solid, this.solidBlockSize, this.solidFiles, this.threads, this.incompressible);
+    }
+
+    public CompressionOptions withSolidBlockSize(long solidBlockSize) {
+        return new CompressionOptions(this.method, this.level, this.dictionarySize, this.solid, solidBlockSize, this.solidFiles, this.threads, this.incompressible);
+    }
+
+    public CompressionOptions withSolidFiles(int solidFiles) {
+        return new CompressionOptions(this.method, this.level, this.dictionarySize, this.solid, this.solidBlockSize, solidFiles, this.threads, this.incompressible);
+    }
+
+    public CompressionOptions withThreads(int threads) {
+        return new CompressionOptions(this.method, this.level, this.dictionarySize, this.solid, this.solidBlockSize, this.solidFiles, threads, this.incompressible);
+    }
+
+    public CompressionOptions withIncompressibleDetection(IncompressibleDetection incompressible) {
+        return new CompressionOptions(this.method, this.level, this.dictionarySize, this.solid, this.solidBlockSize, this.solidFiles, this.threads, incompressible);
+    }
+
+    /**
+     * Check if the level is set.
+     *
+     * @return true if a level is set, false to use the backend default.
+     */
+    public boolean hasLevel() {
+        return this.level != DEFAULT_LEVEL;
+    }
+
+    /**
+     * Compression methods.
+     */
+    public enum Method {
+
+        /**
+         * Default method for the archive format: deflate for zip, LZMA2 for 7z.
+         */
+        DEFAULT,
+
+        /**
+         * No compression.
+         */
+        STORE,
+
+        DEFLATE,
+
+        LZMA,
+
+        LZMA2,
+
+        BZIP2
+    }
+
+    /**
+     * How the files already compressed (images, archives...) are detected, to store them instead of compressing them again.
+     * Only used by the backends compressing each file separately: zip and 7z pure Java.
+     */
+    public enum IncompressibleDetection {
+
+        /**
+         * Every file is compressed.
+         */
+        NONE,
+
+        /**
+         * Files are stored if their magic bytes match a compressed type: PNG, JPG, zip, 7z.
+         */
+        FILE_TYPE,
+
+        /**
+         * Files are stored if their magic bytes match a compressed type, or if their first KB looks random.
+         */
+        FILE_TYPE_AND_ENTROPY
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression;
+
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Unpack an archive read from a stream, for example while it is downloaded, instead of a file.
+ *
+ * @author Grégory Van den Borre
+ */
+public interface StreamUnpacker {
+
+    /**
+     * Extract all the content of an archive read from a stream.
+     * The stream is read until the end of the archive, it is not closed.
+     *
+     * @param archive     Stream providing the archive content.
+     * @param destination Path where the content will be extracted.
+     * @throws IllegalStateException If the archive cannot be read or the content cannot be written.
+     */
+    void unpack(InputStream archive, Path destination);
+
+    /**
+     * Extract all the content of an archive read from a channel.
+     * The channel is read until the end of the archive, it is not closed.
+     *
+     * @param archive     Channel providing the archive content.
+     * @param destination Path where the content will be extracted.
+     * @throws IllegalStateException If the archive cannot be read or the content cannot be written.
+     */
+    default void unpack(ReadableByteChannel archive, Path destination) {
+        unpack(Channels.newInputStream(archive), destination);
+    }
+}
@@ -57,4 +57,22 @@ public interface Unpacker {
      * @throws IllegalStateException If the archive file does not exist.
      */
     void unpackDirectoryToDirectory(Path archive, String directoryToExtract, Path destination);
+
+    /**
+     * Synchronize a directory with an archive, only the entries missing or different in the destination are extracted.
+     * An existing file is kept when its size and its CRC32 match the ones stored in the archive.
+     * The default implementation extracts the whole archive, implementations override it to skip the unchanged files.
+     *
+     * @param archive     Archive file to extract the data from.
+     * @param destination Path where the archive content is extracted, keeping the entry paths.
+     * @param deleteStale true to delete the files and directories of the destination which are not in the archive.
+     * @throws IllegalStateException If the archive file does not exist.
+     * @throws UnsupportedOperationException If deleteStale is true and the implementation does not override this method.
+     */
+    default void sync(Path archive, Path destination, boolean deleteStale) {
+        if (deleteStale) {
+            throw new UnsupportedOperationException("Deleting the stale files is not supported by " + getClass().getName());
+        }
+        unpack(archive, destination, true);
+    }
 }
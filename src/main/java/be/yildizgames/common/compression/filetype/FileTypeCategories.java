@@ -27,7 +27,16 @@ import java.util.Optional;
 public enum FileTypeCategories {
 
     IMAGES(new FileTypeCategory("images").addType(FileTypes.PNG).addType(FileTypes.JPG)),
-    ARCHIVES(new FileTypeCategory("archive").addType(FileTypes.ZIP).addType(FileTypes.SEVEN_ZIP));
+    ARCHIVES(new FileTypeCategory("archive").addType(FileTypes.ZIP).addType(FileTypes.SEVEN_ZIP)),
+
+    /**
+     * Types whose content is already compressed, compressing them again costs time for almost no gain.
+     */
+    COMPRESSED(new FileTypeCategory("compressed")
+            .addType(FileTypes.PNG)
+            .addType(FileTypes.JPG)
+            .addType(FileTypes.ZIP)
+            .addType(FileTypes.SEVEN_ZIP));
 
     private final FileTypeCategory category;
 
@@ -39,6 +48,16 @@ public enum FileTypeCategories {
         return category.is(stream);
     }
 
+    /**
+     * Check the type from the first bytes of a file.
+     *
+     * @param header First bytes of the file, can be shorter than the magic numbers.
+     * @return The matching type, empty if none.
+     */
+    public final Optional<FileType> is(byte[] header) {
+        return category.is(header);
+    }
+
     public final Optional<FileType> is(Path file) throws IOException {
         try (var is = Files.newInputStream(file)){
             return category.is(is);
@@ -18,6 +18,7 @@ package be.yildizgames.common.compression.filetype;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,15 +36,30 @@ public class FileTypeCategory {
         super();
     }
 
+    /**
+     * Number of bytes used to check the magic numbers.
+     */
+    private static final int HEADER_LENGTH = 10;
+
     public final Optional<FileType> is(InputStream stream) throws IOException {
-        int length = 10;
         try (stream) {
-            byte[] buffer = new byte[length];
-            stream.read(buffer, 0, length);
-            return this.types.stream().filter(t -> t.is(buffer)).findFirst();
+            byte[] buffer = new byte[HEADER_LENGTH];
+            stream.read(buffer, 0, HEADER_LENGTH);
+            return is(buffer);
         }
     }
 
+    /**
+     * Check the type from the first bytes of a file.
+     *
+     * @param header First bytes of the file, can be shorter than the magic numbers.
+     * @return The first matching type, empty if none.
+     */
+    public final Optional<FileType> is(byte[] header) {
+        var buffer = header.length < HEADER_LENGTH ? Arrays.copyOf(header, HEADER_LENGTH) : header;
+        return this.types.stream().filter(t -> t.is(buffer)).findFirst();
+    }
+
     public final FileTypeCategory addType(FileType type) {
        this.types.add(type);
        return this;
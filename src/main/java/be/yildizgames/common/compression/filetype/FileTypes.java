@@ -23,7 +23,7 @@ import java.util.List;
 public enum FileTypes {
 
     PNG(new FileType("png", List.of("png"), new FileType.FileTypeBytes(List.of(new int[]{0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A})))),
-    JPG(new FileType("jpg", List.of("jpg", "jpeg"), new FileType.FileTypeBytes(List.of()))),
+    JPG(new FileType("jpg", List.of("jpg", "jpeg"), new FileType.FileTypeBytes(List.of(new int[]{0xFF, 0xD8, 0xFF})))),
     BMP(null),
     GIF(null),
     ZIP(new FileType("zip", List.of("zip"), new FileType.FileTypeBytes(List.of(new int[]{0x50, 0x4b, 0x03, 0x04})))),
@@ -0,0 +1,85 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.filetype;
+
+import java.util.Arrays;
+
+/**
+ * Detect content already compressed, from a sample of the beginning of a file.
+ * The file type is checked with its magic numbers, and optionally the sample entropy is computed,
+ * compressed or encrypted data is close to 8 bits of entropy per byte, text is usually under 5.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class IncompressibleContent {
+
+    /**
+     * Size of the sample to read at the beginning of a file.
+     */
+    public static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * Entropy in bits per byte above which a sample is considered as incompressible.
+     * A 1KB sample of random data is measured around 7.8, because of the small sample size.
+     */
+    private static final double ENTROPY_THRESHOLD = 7.5;
+
+    /**
+     * Minimum sample size to compute a meaningful entropy.
+     */
+    private static final int MIN_ENTROPY_SAMPLE = 256;
+
+    private IncompressibleContent() {
+        super();
+    }
+
+    /**
+     * Check if a sample comes from content already compressed.
+     *
+     * @param sample       Buffer containing the first bytes of the file.
+     * @param length       Number of bytes of the sample in the buffer.
+     * @param checkEntropy true to also check the sample entropy, false to only check the file type.
+     * @return true if compressing the content is very unlikely to reduce its size.
+     */
+    public static boolean is(byte[] sample, int length, boolean checkEntropy) {
+        if (FileTypeCategories.COMPRESSED.is(Arrays.copyOf(sample, Math.min(length, SAMPLE_SIZE))).isPresent()) {
+            return true;
+        }
+        return checkEntropy && length >= MIN_ENTROPY_SAMPLE && entropy(sample, Math.min(length, SAMPLE_SIZE)) > ENTROPY_THRESHOLD;
+    }
+
+    /**
+     * Compute the Shannon entropy of a sample.
+     *
+     * @param sample Buffer containing the sample.
+     * @param length Number of bytes of the sample in the buffer.
+     * @return The entropy, in bits per byte, from 0 to 8.
+     */
+    static double entropy(byte[] sample, int length) {
+        var counts = new int[256];
+        for (int i = 0; i < length; i++) {
+            counts[Byte.toUnsignedInt(sample[i])]++;
+        }
+        double entropy = 0;
+        for (var count : counts) {
+            if (count > 0) {
+                double p = (double) count / length;
+                entropy -= p * Math.log(p);
+            }
+        }
+        return entropy / Math.log(2);
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.hash;
+
+import be.yildizgames.common.hashing.Algorithm;
+import be.yildizgames.common.hashing.FileHash;
+import be.yildizgames.common.hashing.HashingFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compute the hashes for several algorithms while reading the data only once.
+ * The data is read in chunks, each chunk is shared with one consumer thread per algorithm, so an archive entry is decoded
+ * a single time whatever the number of algorithms, and the digests are computed concurrently.
+ * Small sources, read in a single buffer, are hashed on the calling thread, handing them to the consumers would cost
+ * more than the digests.
+ * An instance can be used by several threads at the same time.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class FanOutHasher implements AutoCloseable {
+
+    /**
+     * Size of the chunks read from the source.
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Number of chunks a consumer can be late, this bounds the memory used for a computation.
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
+    /**
+     * Size under which a source is fully read and hashed on the calling thread.
+     */
+    private static final int DIRECT_SIZE = 4 * CHUNK_SIZE;
+
+    /**
+     * Marker sent to the consumers when the source is fully read.
+     */
+    private static final byte[] END = new byte[0];
+
+    /**
+     * Algorithms to compute, in the order of the returned hashes.
+     */
+    private final List<Algorithm> algorithms;
+
+    /**
+     * Run the consumers, null when only one algorithm is used, the hash is then computed on the calling thread.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Create a new instance.
+     *
+     * @param algorithms Algorithms to compute, the hashes are returned in the same order, cannot be empty.
+     */
+    public FanOutHasher(Algorithm... algorithms) {
+        super();
+        if (algorithms.length == 0) {
+            throw new IllegalArgumentException("At least one algorithm is required.");
+        }
+        this.algorithms = List.of(algorithms);
+        if (algorithms.length == 1) {
+            this.executor = null;
+        } else {
+            this.executor = Executors.newCachedThreadPool(r -> {
+                var thread = new Thread(r, "compression-hash");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Compute the hashes of all the algorithms, the stream is read only once, it is not closed.
+     *
+     * @param in Stream to read.
+     * @return The hashes, in the algorithms order.
+     * @throws IOException If the stream cannot be read.
+     */
+    public List<FileHash> compute(InputStream in) throws IOException {
+        if (this.executor == null) {
+            return List.of(HashingFactory.get(this.algorithms.get(0)).compute(in));
+        }
+        var head = in.readNBytes(DIRECT_SIZE);
+        if (head.length < DIRECT_SIZE) {
+            var result = new ArrayList<FileHash>();
+            for (var algorithm : this.algorithms) {
+                result.add(HashingFactory.get(algorithm).compute(new ByteArrayInputStream(head)));
+            }
+            return result;
+        }
+        var queues = new ArrayList<BlockingQueue<byte[]>>();
+        var futures = new ArrayList<Future<FileHash>>();
+        for (var algorithm : this.algorithms) {
+            var queue = new ArrayBlockingQueue<byte[]>(QUEUE_CAPACITY);
+            queues.add(queue);
+            futures.add(this.executor.submit(() -> HashingFactory.get(algorithm).compute(new ChunkInputStream(queue))));
+        }
+        try {
+            try {
+                publish(head, queues, futures);
+                byte[] chunk;
+                while ((chunk = in.readNBytes(CHUNK_SIZE)).length > 0) {
+                    publish(chunk, queues, futures);
+                }
+            } finally {
+                publish(END, queues, futures);
+            }
+            var result = new ArrayList<FileHash>();
+            for (var future : futures) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new InterruptedIOException("Hash computation interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (e.getCause() instanceof UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Give a chunk to every consumer, a consumer that already ended, because of a failure, is skipped.
+     *
+     * @param chunk   Chunk to give, it must not be modified afterward.
+     * @param queues  Consumers queues.
+     * @param futures Consumers results.
+     * @throws InterruptedException If the thread is interrupted while waiting for a consumer.
+     */
+    private static void publish(byte[] chunk, List<BlockingQueue<byte[]>> queues, List<Future<FileHash>> futures) throws InterruptedException {
+        for (int i = 0; i < queues.size(); i++) {
+            while (!queues.get(i).offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                if (futures.get(i).isDone()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stream reading the chunks published in a queue, until the end marker.
+     */
+    private static final class ChunkInputStream extends InputStream {
+
+        private final BlockingQueue<byte[]> queue;
+
+        private byte[] current;
+
+        private int position;
+
+        private ChunkInputStream(BlockingQueue<byte[]> queue) {
+            super();
+            this.queue = queue;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!next()) {
+                return -1;
+            }
+            return Byte.toUnsignedInt(this.current[this.position++]);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!next()) {
+                return -1;
+            }
+            int n = Math.min(len, this.current.length - this.position);
+            System.arraycopy(this.current, this.position, b, off, n);
+            this.position += n;
+            return n;
+        }
+
+        /**
+         * Make sure the current chunk still has data.
+         *
+         * @return false if the end is reached.
+         * @throws IOException If the thread is interrupted.
+         */
+        private boolean next() throws IOException {
+            if (this.current == END) {
+                return false;
+            }
+            if (this.current == null || this.position == this.current.length) {
+                try {
+                    this.current = this.queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+                this.position = 0;
+            }
+            return this.current != END;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sevenzip;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream reading the content of the current entry of a 7zip archive, the entry selected by the last call to
+ * getNextEntry.
+ * Closing this stream does not close the archive.
+ *
+ * @author Grégory Van den Borre
+ */
+final class CurrentEntryInputStream extends InputStream {
+
+    private final SevenZFile sevenZFile;
+
+    CurrentEntryInputStream(SevenZFile sevenZFile) {
+        super();
+        this.sevenZFile = sevenZFile;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return this.sevenZFile.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return this.sevenZFile.read(b, off, len);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sevenzip;
+
+import net.sf.sevenzipjbinding.ISequentialInStream;
+import net.sf.sevenzipjbinding.SevenZipException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Feed the native encoder with the content of a file, chunk by chunk, the file is never loaded in memory.
+ * The channel is closed once the end of the file is reached, or when this stream is closed.
+ *
+ * @author Grégory Van den Borre
+ */
+final class FileChannelInStream implements ISequentialInStream, Closeable {
+
+    /**
+     * Channel to read from.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Create a new stream on a file.
+     *
+     * @param file File to read.
+     * @throws IOException If the file cannot be opened.
+     */
+    FileChannelInStream(Path file) throws IOException {
+        super();
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Fill the native buffer with the next chunk of the file.
+     *
+     * @param data Buffer provided by 7-Zip.
+     * @return The number of bytes read, 0 when the end of the file is reached.
+     * @throws SevenZipException If the file cannot be read.
+     */
+    @Override
+    public int read(byte[] data) throws SevenZipException {
+        if (data.length == 0 || !this.channel.isOpen()) {
+            return 0;
+        }
+        try {
+            int read = this.channel.read(ByteBuffer.wrap(data));
+            if (read == -1) {
+                this.channel.close();
+                return 0;
+            }
+            return read;
+        } catch (IOException e) {
+            throw new SevenZipException("Error reading file", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,549 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sevenzip;
+
+import be.yildizgames.common.compression.CompressionOptions;
+import be.yildizgames.common.compression.filetype.IncompressibleContent;
+import org.tukaani.xz.FinishableWrapperOutputStream;
+import org.tukaani.xz.LZMA2Options;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.CRC32;
+
+/**
+ * Write a 7z archive, compressing the files with LZMA2 on several threads.
+ * Each file is a folder of its own, and is split in blocks compressed independently: every LZMA2 block starts with a
+ * dictionary reset, so the blocks of a file are concatenated into a single valid LZMA2 stream, like 7-Zip and xz do in
+ * multithreaded mode. The blocks are compressed by the workers and written in order, the number of blocks in memory is
+ * bounded to twice the number of threads, each one holding its compressed data, at most the block size for stored or
+ * incompressible data.
+ *
+ * @author Grégory Van den Borre
+ */
+final class ParallelSevenZipWriter {
+
+    private static final byte[] SIGNATURE = {'7', 'z', (byte) 0xBC, (byte) 0xAF, 0x27, 0x1C, 0, 4};
+
+    private static final int SIGNATURE_HEADER_SIZE = 32;
+
+    /**
+     * Default block size, as a multiple of the dictionary size, a block smaller than the dictionary would lose ratio.
+     */
+    private static final int BLOCK_DICTIONARY_FACTOR = 4;
+
+    /**
+     * Maximum size of the blocks of the stored files, they are kept whole in memory until written, so their size does not
+     * depend on the dictionary.
+     */
+    static final long STORE_BLOCK_SIZE = 32L << 20;
+
+    /**
+     * Maximum size of a block, a block is kept in a byte array once compressed so it must stay far below 2GB.
+     */
+    static final long MAX_BLOCK_SIZE = 1L << 30;
+
+    /**
+     * Initial capacity of the buffer receiving a compressed block, it grows with the compressed data.
+     */
+    private static final int INITIAL_COMPRESSED_CAPACITY = 1 << 20;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * Difference between the Windows epoch (1601) and the Java epoch (1970), in 100 nanoseconds.
+     */
+    private static final long FILETIME_EPOCH = 116444736000000000L;
+
+    private static final int K_END = 0x00;
+    private static final int K_HEADER = 0x01;
+    private static final int K_MAIN_STREAMS_INFO = 0x04;
+    private static final int K_FILES_INFO = 0x05;
+    private static final int K_PACK_INFO = 0x06;
+    private static final int K_UNPACK_INFO = 0x07;
+    private static final int K_SUBSTREAMS_INFO = 0x08;
+    private static final int K_SIZE = 0x09;
+    private static final int K_CRC = 0x0A;
+    private static final int K_FOLDER = 0x0B;
+    private static final int K_CODERS_UNPACK_SIZE = 0x0C;
+    private static final int K_EMPTY_STREAM = 0x0E;
+    private static final int K_EMPTY_FILE = 0x0F;
+    private static final int K_NAME = 0x11;
+    private static final int K_MTIME = 0x14;
+
+    private static final int COPY_ID = 0x00;
+    private static final int LZMA2_ID = 0x21;
+
+    /**
+     * LZMA2 settings, null to store all the files.
+     */
+    private final LZMA2Options lzma;
+
+    private final long blockSize;
+
+    private final CompressionOptions.IncompressibleDetection incompressible;
+
+    private final ExecutorService executor;
+
+    private final int threads;
+
+    /**
+     * @param lzma           LZMA2 settings, null to store all the files.
+     * @param blockSize      Maximum size of a block, 0 to use 4 times the dictionary size, limited to {@link #MAX_BLOCK_SIZE}.
+     * @param incompressible How the already compressed files are detected, to store them.
+     * @param executor       Executor compressing the blocks.
+     * @param threads        Number of threads of the executor.
+     * @throws IllegalArgumentException If the block size is greater than {@link #MAX_BLOCK_SIZE}.
+     */
+    ParallelSevenZipWriter(LZMA2Options lzma, long blockSize, CompressionOptions.IncompressibleDetection incompressible,
+                           ExecutorService executor, int threads) {
+        super();
+        this.lzma = lzma;
+        if (blockSize > 0) {
+            this.blockSize = checkBlockSize(blockSize);
+        } else {
+            this.blockSize = lzma == null ? STORE_BLOCK_SIZE : Math.min((long) lzma.getDictSize() * BLOCK_DICTIONARY_FACTOR, MAX_BLOCK_SIZE);
+        }
+        this.incompressible = incompressible;
+        this.executor = executor;
+        this.threads = threads;
+    }
+
+    /**
+     * Check a block size requested for the multithreaded mode.
+     *
+     * @param blockSize Block size to check.
+     * @return The block size.
+     * @throws IllegalArgumentException If the block size is greater than {@link #MAX_BLOCK_SIZE}.
+     */
+    static long checkBlockSize(long blockSize) {
+        if (blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size cannot be greater than " + MAX_BLOCK_SIZE + ": " + blockSize);
+        }
+        return blockSize;
+    }
+
+    /**
+     * Write the archive.
+     *
+     * @param files       Files and directories to add, with their name in the archive, parents directories first.
+     * @param destination Archive to create.
+     * @throws IOException If a file cannot be read or the archive cannot be written.
+     */
+    void write(List<SourceFile> files, Path destination) throws IOException {
+        var entries = new ArrayList<Entry>(files.size());
+        var blocks = new ArrayList<Block>();
+        for (var file : files) {
+            var directory = Files.isDirectory(file.path());
+            var entry = new Entry(file, directory ? 0 : Files.size(file.path()), Files.getLastModifiedTime(file.path()).toMillis(),
+                    directory, !directory && isStored(file.path()));
+            var size = blockSize(entry.stored);
+            for (long offset = 0; offset < entry.size; offset += size) {
+                blocks.add(new Block(entry, offset, Math.min(size, entry.size - offset)));
+            }
+            entries.add(entry);
+        }
+        try (var out = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.position(SIGNATURE_HEADER_SIZE);
+            writeBlocks(blocks, out);
+            var header = header(entries);
+            var headerOffset = out.position() - SIGNATURE_HEADER_SIZE;
+            writeFully(out, ByteBuffer.wrap(header));
+            out.position(0);
+            writeFully(out, signatureHeader(headerOffset, header));
+        }
+    }
+
+    /**
+     * Size of the blocks of a file.
+     *
+     * @param stored true if the file is stored.
+     * @return The block size, stored blocks are limited to {@link #STORE_BLOCK_SIZE}.
+     */
+    long blockSize(boolean stored) {
+        return stored ? Math.min(this.blockSize, STORE_BLOCK_SIZE) : this.blockSize;
+    }
+
+    private boolean isStored(Path file) throws IOException {
+        if (this.lzma == null) {
+            return true;
+        }
+        if (this.incompressible == CompressionOptions.IncompressibleDetection.NONE) {
+            return false;
+        }
+        try (var in = Files.newInputStream(file)) {
+            var sample = in.readNBytes(IncompressibleContent.SAMPLE_SIZE);
+            return IncompressibleContent.is(sample, sample.length,
+                    this.incompressible == CompressionOptions.IncompressibleDetection.FILE_TYPE_AND_ENTROPY);
+        }
+    }
+
+    /**
+     * Compress the blocks on the executor and write them in order, at most twice the thread number of blocks are pending.
+     */
+    private void writeBlocks(List<Block> blocks, FileChannel out) throws IOException {
+        var pending = new ArrayDeque<CompletableFuture<EncodedBlock>>();
+        var next = 0;
+        try {
+            while (next < blocks.size() || !pending.isEmpty()) {
+                while (next < blocks.size() && pending.size() < this.threads * 2) {
+                    var block = blocks.get(next++);
+                    pending.add(CompletableFuture.supplyAsync(() -> encode(block), this.executor));
+                }
+                var encoded = pending.poll().join();
+                writeFully(out, ByteBuffer.wrap(encoded.data(), 0, encoded.length()));
+                encoded.block().entry().add(encoded);
+            }
+        } catch (CompletionException e) {
+            pending.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Read and compress a block, run by the workers.
+     */
+    private EncodedBlock encode(Block block) {
+        var entry = block.entry();
+        var crc = new CRC32();
+        var data = new BlockBuffer(entry.stored ? (int) block.length() : (int) Math.min(block.length() + 1024, INITIAL_COMPRESSED_CAPACITY));
+        try (var channel = FileChannel.open(entry.source.path(), StandardOpenOption.READ)) {
+            InputStream in = Channels.newInputStream(channel.position(block.offset()));
+            var buffer = new byte[BUFFER_SIZE];
+            long remaining = block.length();
+            if (entry.stored) {
+                remaining = copy(in, data, remaining, buffer, crc);
+            } else {
+                var lzmaOut = this.lzma.getOutputStream(new FinishableWrapperOutputStream(data));
+                remaining = copy(in, lzmaOut, remaining, buffer, crc);
+                lzmaOut.finish();
+            }
+            if (remaining != 0) {
+                throw new EOFException("File changed while archiving: " + entry.source.path());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var length = data.size();
+        var last = block.offset() + block.length() == entry.size;
+        if (!entry.stored && !last) {
+            // The end marker is removed, the next block of the file follows in the same LZMA2 stream.
+            length--;
+        }
+        return new EncodedBlock(block, data.array(), length, crc.getValue());
+    }
+
+    /**
+     * Buffer receiving a block, giving access to its backing array so the block is not copied once more.
+     */
+    private static final class BlockBuffer extends ByteArrayOutputStream {
+
+        private BlockBuffer(int capacity) {
+            super(capacity);
+        }
+
+        private byte[] array() {
+            return this.buf;
+        }
+    }
+
+    private static long copy(InputStream in, OutputStream out, long remaining, byte[] buffer, CRC32 crc) throws IOException {
+        int read;
+        while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            crc.update(buffer, 0, read);
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+        return remaining;
+    }
+
+    private byte[] header(List<Entry> entries) {
+        var folders = entries.stream().filter(e -> e.size > 0).toList();
+        var h = new HeaderOutput();
+        h.write(K_HEADER);
+        if (!folders.isEmpty()) {
+            h.write(K_MAIN_STREAMS_INFO);
+            h.write(K_PACK_INFO);
+            h.number(0);
+            h.number(folders.size());
+            h.write(K_SIZE);
+            folders.forEach(f -> h.number(f.packSize));
+            h.write(K_END);
+            h.write(K_UNPACK_INFO);
+            h.write(K_FOLDER);
+            h.number(folders.size());
+            h.write(0);
+            for (var folder : folders) {
+                h.number(1);
+                if (folder.stored) {
+                    h.write(0x01);
+                    h.write(COPY_ID);
+                } else {
+                    h.write(0x21);
+                    h.write(LZMA2_ID);
+                    h.number(1);
+                    h.write(dictionaryProperty(this.lzma.getDictSize()));
+                }
+            }
+            h.write(K_CODERS_UNPACK_SIZE);
+            folders.forEach(f -> h.number(f.size));
+            h.write(K_END);
+            h.write(K_SUBSTREAMS_INFO);
+            h.write(K_CRC);
+            h.write(1);
+            folders.forEach(f -> h.uint32(f.crc));
+            h.write(K_END);
+            h.write(K_END);
+        }
+        h.write(K_FILES_INFO);
+        h.number(entries.size());
+        var empty = entries.stream().filter(e -> e.size == 0).count();
+        if (empty > 0) {
+            var emptyStream = new boolean[entries.size()];
+            var emptyFile = new boolean[(int) empty];
+            for (int i = 0, j = 0; i < entries.size(); i++) {
+                if (entries.get(i).size == 0) {
+                    emptyStream[i] = true;
+                    emptyFile[j++] = !entries.get(i).directory;
+                }
+            }
+            h.property(K_EMPTY_STREAM, bits(emptyStream));
+            if (entries.stream().anyMatch(e -> e.size == 0 && !e.directory)) {
+                h.property(K_EMPTY_FILE, bits(emptyFile));
+            }
+        }
+        var names = new HeaderOutput();
+        names.write(0);
+        for (var entry : entries) {
+            names.bytes((entry.source.name() + '\0').getBytes(StandardCharsets.UTF_16LE));
+        }
+        h.property(K_NAME, names.toByteArray());
+        var times = new HeaderOutput();
+        times.write(1);
+        times.write(0);
+        entries.forEach(e -> times.uint64(e.lastModified * 10_000 + FILETIME_EPOCH));
+        h.property(K_MTIME, times.toByteArray());
+        h.write(K_END);
+        h.write(K_END);
+        return h.toByteArray();
+    }
+
+    private static ByteBuffer signatureHeader(long headerOffset, byte[] header) {
+        var crc = new CRC32();
+        crc.update(header);
+        var start = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+        start.putLong(headerOffset).putLong(header.length).putInt((int) crc.getValue());
+        var startCrc = new CRC32();
+        startCrc.update(start.array());
+        var signature = ByteBuffer.allocate(SIGNATURE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        signature.put(SIGNATURE).putInt((int) startCrc.getValue()).put(start.array()).flip();
+        return signature;
+    }
+
+    /**
+     * Encode the LZMA2 dictionary size property, as expected by 7-Zip.
+     * The property describes sizes of 2^n or 3 * 2^(n-1) bytes, the smallest one not below the dictionary size is used,
+     * so the decoder window is never smaller than the encoder one.
+     */
+    static int dictionaryProperty(int dictionarySize) {
+        var property = 0;
+        while (property < 40 && (long) (2 | (property & 1)) << (property / 2 + 11) < dictionarySize) {
+            property++;
+        }
+        return property;
+    }
+
+    private static byte[] bits(boolean[] values) {
+        var result = new byte[(values.length + 7) / 8];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i]) {
+                result[i / 8] |= (byte) (0x80 >>> (i % 8));
+            }
+        }
+        return result;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Combine the CRC32 of two consecutive data, as zlib crc32_combine does.
+     *
+     * @param crc1   CRC of the first data.
+     * @param crc2   CRC of the second data.
+     * @param length Length of the second data.
+     * @return The CRC of the first data followed by the second.
+     */
+    static long combine(long crc1, long crc2, long length) {
+        if (length <= 0) {
+            return crc1;
+        }
+        var even = new long[32];
+        var odd = new long[32];
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd);
+        square(odd, even);
+        var len = length;
+        do {
+            square(even, odd);
+            if ((len & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            len >>= 1;
+            if (len == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((len & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            len >>= 1;
+        } while (len != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    /**
+     * A file or a directory to add in the archive, a directory is added as an empty entry, its content must be added separately.
+     *
+     * @param name Name in the archive.
+     * @param path File to read.
+     */
+    record SourceFile(String name, Path path) {}
+
+    /**
+     * A file being written, its sizes and CRC are updated as its blocks are written, from the writing thread only.
+     */
+    private static final class Entry {
+
+        private final SourceFile source;
+        private final long size;
+        private final long lastModified;
+        private final boolean directory;
+        private final boolean stored;
+        private long packSize;
+        private long crc;
+
+        private Entry(SourceFile source, long size, long lastModified, boolean directory, boolean stored) {
+            super();
+            this.source = source;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.directory = directory;
+            this.stored = stored;
+        }
+
+        private void add(EncodedBlock block) {
+            this.packSize += block.length();
+            this.crc = block.block().offset() == 0 ? block.crc() : combine(this.crc, block.crc(), block.block().length());
+        }
+    }
+
+    private record Block(Entry entry, long offset, long length) {}
+
+    private record EncodedBlock(Block block, byte[] data, int length, long crc) {}
+
+    /**
+     * Little endian output with the 7z number encoding.
+     */
+    private static final class HeaderOutput extends ByteArrayOutputStream {
+
+        private void number(long value) {
+            int first = 0;
+            int mask = 0x80;
+            int i;
+            for (i = 0; i < 8; i++) {
+                if (value < (1L << (7 * (i + 1)))) {
+                    first |= (int) (value >>> (8 * i));
+                    break;
+                }
+                first |= mask;
+                mask >>>= 1;
+            }
+            write(first);
+            for (; i > 0; i--) {
+                write((int) (value & 0xFF));
+                value >>>= 8;
+            }
+        }
+
+        private void uint32(long value) {
+            for (int i = 0; i < 4; i++) {
+                write((int) (value >>> (8 * i)) & 0xFF);
+            }
+        }
+
+        private void uint64(long value) {
+            for (int i = 0; i < 8; i++) {
+                write((int) (value >>> (8 * i)) & 0xFF);
+            }
+        }
+
+        private void bytes(byte[] value) {
+            write(value, 0, value.length);
+        }
+
+        private void property(int id, byte[] value) {
+            write(id);
+            number(value.length);
+            bytes(value);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sevenzip;
+
+import be.yildizgames.common.compression.ArchiveHandle;
+import be.yildizgames.common.compression.FileInfo;
+import be.yildizgames.common.compression.hash.FanOutHasher;
+import be.yildizgames.common.hashing.Algorithm;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 7zip archive kept open, the headers are parsed once and the entry table is reused by every operation.
+ * A 7zip archive is read through a single decoder, so the operations are serialized.
+ * Extracting or hashing the whole archive walks the entries once in the archive order, through a second reader of the
+ * archive, instead of looking every entry up in the opened one, which would cost a scan of the entry table per entry.
+ *
+ * @author Grégory Van den Borre
+ */
+public class SevenZipArchiveHandle implements ArchiveHandle {
+
+    /**
+     * Path of the archive, to walk all its entries.
+     */
+    private final Path archive;
+
+    /**
+     * Opened archive.
+     */
+    private final SevenZFile file;
+
+    /**
+     * Entries in the archive order, a name can be present several times.
+     */
+    private final List<SevenZArchiveEntry> entries;
+
+    /**
+     * Entries by name to look them up, the last entry is kept for a duplicated name, as it is the one left by a full
+     * extraction.
+     */
+    private final Map<String, SevenZArchiveEntry> entriesByName = new HashMap<>();
+
+    /**
+     * Open an archive.
+     *
+     * @param archive Archive to open.
+     * @throws IllegalStateException If the archive cannot be opened.
+     */
+    public SevenZipArchiveHandle(Path archive) {
+        super();
+        this.archive = archive;
+        try {
+            this.file = open(archive);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open " + archive, e);
+        }
+        this.entries = new ArrayList<>();
+        for (var entry : this.file.getEntries()) {
+            this.entries.add(entry);
+            this.entriesByName.put(entry.getName(), entry);
+        }
+    }
+
+    @Override
+    public final List<String> entries() {
+        return this.entries.stream().map(SevenZArchiveEntry::getName).toList();
+    }
+
+    @Override
+    public final boolean contains(String entry) {
+        return this.entriesByName.containsKey(entry);
+    }
+
+    @Override
+    public final synchronized void unpack(String fileToExtract, Path destination) {
+        var entry = this.entriesByName.get(fileToExtract);
+        if (entry == null) {
+            throw new IllegalArgumentException("Entry not found: " + fileToExtract);
+        }
+        try (var in = this.file.getInputStream(entry)) {
+            unpackEntry(entry, in, destination);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error unpacking " + fileToExtract + ":" + destination, e);
+        }
+    }
+
+    @Override
+    public final void unpack(Path destination) {
+        unpackMatching("", destination);
+    }
+
+    @Override
+    public final void unpackDirectoryToDirectory(String directoryToExtract, Path destination) {
+        unpackMatching(directoryToExtract + "/", destination);
+    }
+
+    /**
+     * Extract all the entries whose name starts with a prefix, entries are read in the archive order so a solid
+     * block is decoded only once.
+     *
+     * @param prefix      Prefix of the entries to extract, empty to extract everything.
+     * @param destination Directory where the entries are extracted.
+     */
+    private synchronized void unpackMatching(String prefix, Path destination) {
+        try (var sevenZFile = open(this.archive)) {
+            Files.createDirectories(destination);
+            var in = new CurrentEntryInputStream(sevenZFile);
+            SevenZArchiveEntry entry;
+            while ((entry = sevenZFile.getNextEntry()) != null) {
+                if (entry.getName().startsWith(prefix)) {
+                    unpackEntry(entry, in, destination);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error unpacking " + prefix + ":" + destination, e);
+        }
+    }
+
+    private static void unpackEntry(SevenZArchiveEntry entry, InputStream in, Path destination) throws IOException {
+        var target = destination.resolve(entry.getName());
+        if (entry.isDirectory()) {
+            Files.createDirectories(target);
+            return;
+        }
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public final synchronized List<FileInfo> getFileInfo(Algorithm... algorithms) {
+        var result = new ArrayList<FileInfo>();
+        if (algorithms == null || algorithms.length == 0) {
+            for (var entry : this.entries) {
+                if (!entry.isDirectory()) {
+                    result.add(new FileInfo(entry.getName(), List.of()));
+                }
+            }
+            return result;
+        }
+        try (var hasher = new FanOutHasher(algorithms); var sevenZFile = open(this.archive)) {
+            var in = new CurrentEntryInputStream(sevenZFile);
+            SevenZArchiveEntry entry;
+            while ((entry = sevenZFile.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    result.add(new FileInfo(entry.getName(), hasher.compute(in)));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public final synchronized void close() {
+        try {
+            this.file.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SevenZFile open(Path archive) throws IOException {
+        return SevenZFile.builder().setPath(archive).setTryToRecoverBrokenArchives(true).get();
+    }
+}
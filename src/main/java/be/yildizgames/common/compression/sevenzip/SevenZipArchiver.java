@@ -16,12 +16,20 @@
 package be.yildizgames.common.compression.sevenzip;
 
 import be.yildizgames.common.compression.Archiver;
+import be.yildizgames.common.compression.CompressionOptions;
+import be.yildizgames.common.compression.filetype.IncompressibleContent;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethod;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethodConfiguration;
 import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.UnsupportedOptionsException;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 /**
  * This class is able to compress into the 7zip archive format.
@@ -30,25 +38,184 @@ import java.util.List;
  */
 public class SevenZipArchiver implements Archiver {
 
+    /**
+     * Method used for the entries already compressed.
+     */
+    private static final List<SevenZMethodConfiguration> STORE = List.of(new SevenZMethodConfiguration(SevenZMethod.COPY));
+
+    /**
+     * Method used to compress the entries, with its settings.
+     */
+    private final SevenZMethodConfiguration method;
+
+    /**
+     * How the already compressed files are detected to store them.
+     */
+    private final CompressionOptions.IncompressibleDetection incompressible;
+
+    /**
+     * Number of threads compressing the blocks, 1 to compress with commons-compress on the calling thread.
+     */
+    private final int threads;
+
+    /**
+     * LZMA2 settings for the multithreaded mode, null to store the files.
+     */
+    private final LZMA2Options parallelLzma;
+
+    /**
+     * Maximum size of a block in the multithreaded mode, 0 for the default.
+     */
+    private final long blockSize;
+
+    /**
+     * Create an archiver with the commons-compress default settings, LZMA2 with an 8MB dictionary.
+     */
+    public SevenZipArchiver() {
+        this(CompressionOptions.defaults());
+    }
+
+    /**
+     * Create an archiver with specific settings, only the method, the level, the dictionary size, the incompressible
+     * detection, the thread number and the solid block size are used, each file is compressed in its own folder.
+     * With more than one thread and the LZMA2 or store method, the files are split in blocks of the solid block size
+     * (4 times the dictionary size by default, at most 1GB) compressed concurrently, other methods ignore the thread number.
+     * Stored files are split in blocks of at most 32MB, whatever the solid block size.
+     * Each thread uses the memory of a LZMA2 encoder, about 10 times the dictionary size, and up to twice the thread
+     * number of blocks wait in memory to be written in order, each one taking its compressed size: for incompressible
+     * data the peak is about threads * (10 * dictionary size + 2 * block size), 8 threads with the default 8MB
+     * dictionary and 32MB blocks use about 1.2GB, a store only archive uses at most threads * 64MB.
+     *
+     * @param options Compression settings.
+     * @throws IllegalArgumentException If the settings are not valid for the method, or the solid block size is greater
+     * than 1GB in multithreaded mode.
+     */
+    public SevenZipArchiver(CompressionOptions options) {
+        super();
+        this.method = switch (options.method()) {
+            case DEFAULT, LZMA2 -> new SevenZMethodConfiguration(SevenZMethod.LZMA2, lzmaOptions(options));
+            case LZMA -> new SevenZMethodConfiguration(SevenZMethod.LZMA, lzmaOptions(options));
+            case STORE -> new SevenZMethodConfiguration(SevenZMethod.COPY);
+            case DEFLATE -> new SevenZMethodConfiguration(SevenZMethod.DEFLATE, options.hasLevel() ? options.level() : null);
+            case BZIP2 -> new SevenZMethodConfiguration(SevenZMethod.BZIP2, options.hasLevel() ? Math.max(1, options.level()) : null);
+        };
+        this.incompressible = options.incompressible();
+        var parallelMethod = switch (options.method()) {
+            case DEFAULT, LZMA2, STORE -> true;
+            default -> false;
+        };
+        this.threads = parallelMethod ? Math.max(1, options.threads()) : 1;
+        if (options.method() == CompressionOptions.Method.STORE) {
+            this.parallelLzma = null;
+        } else {
+            var lzma = lzmaOptions(options);
+            this.parallelLzma = lzma == null && this.threads > 1 ? new LZMA2Options() : lzma;
+        }
+        this.blockSize = this.threads > 1 ? ParallelSevenZipWriter.checkBlockSize(options.solidBlockSize()) : options.solidBlockSize();
+    }
+
+    private boolean isIncompressible(byte[] sample, int length) {
+        if (this.method.getMethod() == SevenZMethod.COPY || this.incompressible == CompressionOptions.IncompressibleDetection.NONE) {
+            return false;
+        }
+        return IncompressibleContent.is(sample, length, this.incompressible == CompressionOptions.IncompressibleDetection.FILE_TYPE_AND_ENTROPY);
+    }
+
+    /**
+     * Build the LZMA settings, from the preset matching the level, with the dictionary size if any.
+     * The 7z header can only describe a dictionary of 2^n or 3 * 2^(n-1) bytes, any other size is rounded up to the next
+     * one, so a decoder never uses a window smaller than the encoder.
+     *
+     * @param options Compression settings.
+     * @return The LZMA settings, null to use the commons-compress default.
+     */
+    private static LZMA2Options lzmaOptions(CompressionOptions options) {
+        if (!options.hasLevel() && options.dictionarySize() == 0) {
+            return null;
+        }
+        try {
+            var lzma = new LZMA2Options(options.hasLevel() ? options.level() : LZMA2Options.PRESET_DEFAULT);
+            if (options.dictionarySize() != 0) {
+                lzma.setDictSize(encodableDictionarySize(options.dictionarySize()));
+            }
+            return lzma;
+        } catch (UnsupportedOptionsException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Round a dictionary size up to the next size the 7z LZMA2 property can describe, 2^n or 3 * 2^(n-1).
+     *
+     * @param size Requested dictionary size.
+     * @return The smallest describable size greater than or equal to the requested one, bounded to the int range.
+     */
+    static int encodableDictionarySize(int size) {
+        long high = Integer.highestOneBit(size);
+        if (size == high) {
+            return size;
+        }
+        long threeHalves = high + (high >>> 1);
+        long result = size <= threeHalves ? threeHalves : high << 1;
+        return (int) Math.min(result, Integer.MAX_VALUE);
+    }
+
     @Override
     public final void pack(Path file, Path destination) {
-        try (SevenZOutputFile out = new SevenZOutputFile(destination.toFile())) {
-            addToArchiveCompression(out, file, "");
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
-        }
+        pack(List.of(file), destination);
     }
 
     @Override
     public final void pack(List<Path> files, Path destination) {
-        try (SevenZOutputFile out = new SevenZOutputFile(destination.toFile())) {
+        if (this.threads > 1) {
+            packParallel(files, destination);
+            return;
+        }
+        try (SevenZOutputFile out = create(destination)) {
             files.forEach(file -> addToArchiveCompression(out, file, ""));
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    private static void addToArchiveCompression(SevenZOutputFile out, Path file, String dir) {
+    private void packParallel(List<Path> files, Path destination) {
+        var sources = new ArrayList<ParallelSevenZipWriter.SourceFile>();
+        files.forEach(file -> collect(file, "", sources));
+        var executor = Executors.newFixedThreadPool(this.threads);
+        try {
+            new ParallelSevenZipWriter(this.parallelLzma, this.blockSize, this.incompressible, executor, this.threads).write(sources, destination);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * List the files to add, with the same names as the sequential mode, the directories are added as entries too,
+     * so they can be created before their content when extracting.
+     */
+    private static void collect(Path file, String dir, List<ParallelSevenZipWriter.SourceFile> sources) {
+        var name = dir.isEmpty() ? file.getFileName().toString() : dir + "/" + file.getFileName().toString();
+        if (Files.isRegularFile(file)) {
+            sources.add(new ParallelSevenZipWriter.SourceFile(name, file));
+        } else if (Files.isDirectory(file)) {
+            sources.add(new ParallelSevenZipWriter.SourceFile(name, file));
+            try (var files = Files.list(file)) {
+                files.forEach(f -> collect(f, name, sources));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private SevenZOutputFile create(Path destination) throws IOException {
+        var out = new SevenZOutputFile(destination.toFile());
+        out.setContentMethods(List.of(this.method));
+        return out;
+    }
+
+    private void addToArchiveCompression(SevenZOutputFile out, Path file, String dir) {
         var n = file.getFileName().toString();
         if(!dir.isEmpty()) {
             n = dir + "/" + n;
@@ -57,10 +224,14 @@ public class SevenZipArchiver implements Archiver {
         try {
             if (Files.isRegularFile(file)) {
                 var entry = out.createArchiveEntry(file, name);
-                out.putArchiveEntry(entry);
                 try (var in = Files.newInputStream(file)) {
-                    var b = new byte[1024];
-                    int count;
+                    var b = new byte[IncompressibleContent.SAMPLE_SIZE];
+                    int count = in.readNBytes(b, 0, b.length);
+                    if (isIncompressible(b, count)) {
+                        entry.setContentMethods(STORE);
+                    }
+                    out.putArchiveEntry(entry);
+                    out.write(b, 0, count);
                     while ((count = in.read(b)) > 0) {
                         out.write(b, 0, count);
                     }
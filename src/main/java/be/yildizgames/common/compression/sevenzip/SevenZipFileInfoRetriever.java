@@ -17,18 +17,16 @@ package be.yildizgames.common.compression.sevenzip;
 
 import be.yildizgames.common.compression.FileInfo;
 import be.yildizgames.common.compression.FileInfoRetriever;
+import be.yildizgames.common.compression.hash.FanOutHasher;
 import be.yildizgames.common.hashing.Algorithm;
-import be.yildizgames.common.hashing.FileHash;
-import be.yildizgames.common.hashing.HashingFactory;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
 import org.apache.commons.compress.archivers.sevenz.SevenZFile;
 import org.apache.commons.compress.archivers.sevenz.SevenZFileOptions;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -75,27 +73,25 @@ public class SevenZipFileInfoRetriever implements FileInfoRetriever {
         return result;
     }
 
+    /**
+     * Compute the hashes, every entry is decoded only once and its content is given to all the algorithms at the same time.
+     *
+     * @param algorithms Algorithms to compute.
+     * @return The file info with the hashes in the algorithms order.
+     */
     private List<FileInfo> computeHashes(Algorithm... algorithms) {
         var result = new ArrayList<FileInfo>();
-        Map<String, List<FileHash>> hashes = new HashMap<>();
-        for (var a : algorithms) {
-            try (var sevenZFile = new SevenZFile(this.path.toFile(), SevenZFileOptions.builder().withTryToRecoverBrokenArchives(true).build())) {
-                for (var e : sevenZFile.getEntries()) {
-                    if (!e.isDirectory()) {
-                        var is = sevenZFile.getInputStream(e);
-                        var hash = HashingFactory.get(a).compute(is, (int) e.getSize());
-                        if (!hashes.containsKey(e.getName())) {
-                            hashes.put(e.getName(), new ArrayList<>());
-                        }
-                        hashes.get(e.getName()).add(hash);
-                    }
+        try (var hasher = new FanOutHasher(algorithms);
+             var sevenZFile = SevenZFile.builder().setPath(this.path).setTryToRecoverBrokenArchives(true).get()) {
+            var in = new CurrentEntryInputStream(sevenZFile);
+            SevenZArchiveEntry e;
+            while ((e = sevenZFile.getNextEntry()) != null) {
+                if (!e.isDirectory()) {
+                    result.add(new FileInfo(e.getName(), hasher.compute(in)));
                 }
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
             }
-        }
-        for(var entry : hashes.entrySet()) {
-            result.add(new FileInfo(entry.getKey(), entry.getValue()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
         }
         return result;
     }
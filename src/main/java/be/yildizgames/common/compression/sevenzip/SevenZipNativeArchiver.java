@@ -16,6 +16,8 @@
 package be.yildizgames.common.compression.sevenzip;
 
 import be.yildizgames.common.compression.Archiver;
+import be.yildizgames.common.compression.CompressionOptions;
+import net.sf.sevenzipjbinding.IOutArchive7z;
 import net.sf.sevenzipjbinding.IOutCreateCallback;
 import net.sf.sevenzipjbinding.IOutItem7z;
 import net.sf.sevenzipjbinding.ISequentialInStream;
@@ -23,12 +25,12 @@ import net.sf.sevenzipjbinding.SevenZip;
 import net.sf.sevenzipjbinding.SevenZipException;
 import net.sf.sevenzipjbinding.impl.OutItemFactory;
 import net.sf.sevenzipjbinding.impl.RandomAccessFileOutStream;
-import net.sf.sevenzipjbinding.util.ByteArrayStream;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -38,8 +40,37 @@ public class SevenZipNativeArchiver extends SevenZipNative implements Archiver {
 
     private final static System.Logger LOGGER = System.getLogger(SevenZipNativeArchiver.class.getName());
 
+    /**
+     * Level used when none is given, 7-Zip normal level.
+     */
+    private static final int DEFAULT_LEVEL = 5;
+
+    private final CompressionOptions options;
+
+    /**
+     * Create an archiver with the 7-Zip normal settings: level 5, solid, default thread number.
+     */
     public SevenZipNativeArchiver() {
+        this(CompressionOptions.defaults());
+    }
+
+    /**
+     * Create an archiver with specific settings, only the method, the level, the solid settings and the thread number are used.
+     * The native binding does not expose the method choice nor the dictionary size, 7-Zip uses LZMA2 with the dictionary size
+     * of the level, storing is done with the level 0.
+     * Without thread number, 7-Zip uses all the cores. Small solid blocks (by size or file number) keep the extraction of
+     * a single file fast, as only its block is decoded.
+     * The header compression is not exposed by the binding, 7-Zip always compresses the headers.
+     *
+     * @param options Compression settings, the method must be default, store or LZMA2.
+     * @throws IllegalArgumentException If the method is not supported by the native implementation.
+     */
+    public SevenZipNativeArchiver(CompressionOptions options) {
         super();
+        switch (options.method()) {
+            case DEFAULT, STORE, LZMA2 -> this.options = options;
+            default -> throw new IllegalArgumentException("Method not supported by the native implementation: " + options.method());
+        }
     }
 
     @Override
@@ -88,16 +119,50 @@ public class SevenZipNativeArchiver extends SevenZipNative implements Archiver {
         if (!files.isEmpty()) {
             try (var raf = new RandomAccessFile(destination.toAbsolutePath().toString(), "rw");
                  var outArchive = SevenZip.openOutArchive7z()) {
-                outArchive.setLevel(5);
-                outArchive.setSolid(true);
-                outArchive.createArchive(new RandomAccessFileOutStream(raf), files.size(), new ArchiveCallback(files));
+                configure(outArchive);
+                var callback = new ArchiveCallback(files);
+                try {
+                    outArchive.createArchive(new RandomAccessFileOutStream(raf), files.size(), callback);
+                } finally {
+                    callback.closeStreams();
+                }
             } catch (Exception e) {
                 LOGGER.log(System.Logger.Level.ERROR, "", e);
             }
         }
     }
 
-    private record ArchiveCallback(List<Entry> files) implements IOutCreateCallback<IOutItem7z> {
+    private void configure(IOutArchive7z outArchive) throws SevenZipException {
+        if (this.options.method() == CompressionOptions.Method.STORE) {
+            outArchive.setLevel(0);
+        } else {
+            outArchive.setLevel(this.options.hasLevel() ? this.options.level() : DEFAULT_LEVEL);
+        }
+        outArchive.setSolid(this.options.solid());
+        if (this.options.solid() && this.options.solidBlockSize() > 0) {
+            outArchive.setSolidSize(this.options.solidBlockSize());
+        }
+        if (this.options.solid() && this.options.solidFiles() > 0) {
+            outArchive.setSolidFiles(this.options.solidFiles());
+        }
+        if (this.options.threads() > 0) {
+            outArchive.setThreadCount(this.options.threads());
+        }
+    }
+
+    private static final class ArchiveCallback implements IOutCreateCallback<IOutItem7z> {
+
+        private final List<Entry> files;
+
+        /**
+         * Streams given to 7-Zip, kept to be sure they are all closed once the archive is created.
+         */
+        private final List<FileChannelInStream> streams = new ArrayList<>();
+
+        private ArchiveCallback(List<Entry> files) {
+            super();
+            this.files = files;
+        }
 
         public void setOperationResult(boolean operationResultOk) {
             // Track each operation result here
@@ -121,13 +186,30 @@ public class SevenZipNativeArchiver extends SevenZipNative implements Archiver {
         }
 
         public ISequentialInStream getStream(int index) throws SevenZipException {
+            var file = this.files.get(index);
+            if (file.directory) {
+                return null;
+            }
             try {
-                return new ByteArrayStream(Files.readAllBytes(this.files.get(index).path), true);
+                var stream = new FileChannelInStream(file.path);
+                this.streams.add(stream);
+                return stream;
             } catch (IOException e) {
                 LOGGER.log(System.Logger.Level.ERROR, "", e);
                 throw new SevenZipException(e);
             }
         }
+
+        private void closeStreams() {
+            for (var stream : this.streams) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    LOGGER.log(System.Logger.Level.ERROR, "", e);
+                }
+            }
+            this.streams.clear();
+        }
     }
 
     private record Entry(String name, boolean directory, long size, Path path) {}
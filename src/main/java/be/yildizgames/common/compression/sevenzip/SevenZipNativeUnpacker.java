@@ -16,6 +16,7 @@
 package be.yildizgames.common.compression.sevenzip;
 
 import be.yildizgames.common.compression.Unpacker;
+import be.yildizgames.common.compression.sync.DestinationSync;
 import net.sf.sevenzipjbinding.ExtractAskMode;
 import net.sf.sevenzipjbinding.ExtractOperationResult;
 import net.sf.sevenzipjbinding.IArchiveExtractCallback;
@@ -26,13 +27,17 @@ import net.sf.sevenzipjbinding.SevenZip;
 import net.sf.sevenzipjbinding.SevenZipException;
 import net.sf.sevenzipjbinding.impl.RandomAccessFileInStream;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.function.Predicate;
 
 /**
  * @author Grégory Van den Borre
@@ -52,57 +57,219 @@ public class SevenZipNativeUnpacker extends SevenZipNative implements Unpacker {
 
     @Override
     public final void unpack(Path archive, Path destination, boolean keepRootDir, boolean discardSubDirectories) {
+        extract(archive, destination, discardSubDirectories, null);
+    }
+
+    /**
+     * Extract a single file, only the folder containing it is decoded.
+     *
+     * @param archive       Archive to read.
+     * @param fileToExtract Full name of the file in the archive, it is extracted keeping its path.
+     * @param destination   Directory where the file is extracted.
+     */
+    @Override
+    public final void unpack(Path archive, String fileToExtract, Path destination) {
+        extract(archive, destination, false, fileToExtract::equals);
+    }
+
+    /**
+     * Extract a directory and its content, only the folders containing its files are decoded.
+     *
+     * @param archive            Archive to read.
+     * @param directoryToExtract Directory to extract, it is extracted keeping its path.
+     * @param destination        Directory where the content is extracted.
+     */
+    @Override
+    public final void unpackDirectoryToDirectory(Path archive, String directoryToExtract, Path destination) {
+        var prefix = directoryToExtract + "/";
+        extract(archive, destination, false, path -> path.equals(directoryToExtract) || path.startsWith(prefix));
+    }
+
+    /**
+     * Synchronize the destination with the archive, the sizes and CRCs are read from the archive properties first,
+     * then only the changed entries are extracted, so 7-Zip only decodes the folders containing them.
+     *
+     * @param archive     Archive file to extract the data from.
+     * @param destination Path where the archive content is extracted.
+     * @param deleteStale true to delete the files of the destination which are not in the archive.
+     */
+    @Override
+    public final void sync(Path archive, Path destination, boolean deleteStale) {
+        init();
+        var sync = new DestinationSync(destination);
+        var changed = new HashSet<String>();
+        try (
+                var randomAccessFile = new RandomAccessFile(archive.toAbsolutePath().toString(), "r");
+                var inArchive = SevenZip.openInArchive(null, new RandomAccessFileInStream(randomAccessFile))) {
+            for (int i = 0; i < inArchive.getNumberOfItems(); i++) {
+                var path = path(inArchive, i);
+                var target = sync.target(path);
+                if (Boolean.TRUE.equals(inArchive.getProperty(i, PropID.IS_FOLDER))) {
+                    changed.add(path);
+                    continue;
+                }
+                var size = inArchive.getProperty(i, PropID.SIZE);
+                var crc = inArchive.getProperty(i, PropID.CRC);
+                var known = size instanceof Long && crc instanceof Integer;
+                if (!known || !sync.isUpToDate(target, (Long) size, Integer.toUnsignedLong((Integer) crc))) {
+                    changed.add(path);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(System.Logger.Level.ERROR, "", e);
+            return;
+        }
+        extract(archive, destination, false, changed::contains);
+        if (deleteStale) {
+            try {
+                sync.deleteStale();
+            } catch (IOException e) {
+                LOGGER.log(System.Logger.Level.ERROR, "", e);
+            }
+        }
+    }
+
+    /**
+     * Extract the matching entries, their indices are resolved from the entry paths, so 7-Zip only decodes the folders
+     * containing them.
+     *
+     * @param archive               Archive to read.
+     * @param destination           Directory where the entries are extracted.
+     * @param discardSubDirectories true to extract all the files directly in the destination.
+     * @param filter                Filter on the entry paths, with / as separator, null to extract everything.
+     */
+    private void extract(Path archive, Path destination, boolean discardSubDirectories, Predicate<String> filter) {
         init();
         try (
                 var randomAccessFile = new RandomAccessFile(archive.toAbsolutePath().toString(), "r");
                 var inArchive = SevenZip.openInArchive(null, new RandomAccessFileInStream(randomAccessFile))) {
+            var indices = filter == null ? null : indices(inArchive, filter);
+            if (indices != null && indices.length == 0) {
+                return;
+            }
             if (Files.notExists(destination)) {
                 Files.createDirectories(destination);
             }
-            inArchive.extract(null, false, new UnPackCallback(inArchive, destination, discardSubDirectories));
+            var callback = new UnPackCallback(inArchive, destination, discardSubDirectories);
+            try {
+                inArchive.extract(indices, false, callback);
+            } finally {
+                callback.closeCurrent();
+            }
         } catch (Exception e) {
             LOGGER.log(System.Logger.Level.ERROR, "", e);
         }
     }
 
-    @Override
-    public final void unpack(Path archive, String fileToExtract, Path destination) {
-        throw new UnsupportedOperationException();
+    private static int[] indices(IInArchive inArchive, Predicate<String> filter) throws SevenZipException {
+        var count = inArchive.getNumberOfItems();
+        var result = new int[count];
+        var size = 0;
+        for (int i = 0; i < count; i++) {
+            if (filter.test(path(inArchive, i))) {
+                result[size++] = i;
+            }
+        }
+        return Arrays.copyOf(result, size);
     }
 
-    @Override
-    public final void unpackDirectoryToDirectory(Path archive, String directoryToExtract, Path destination) {
-        throw new UnsupportedOperationException();
+    /**
+     * Provide the path of an entry, with / as separator whatever the platform.
+     */
+    private static String path(IInArchive inArchive, int index) throws SevenZipException {
+        return ((String) inArchive.getProperty(index, PropID.PATH)).replace('\\', '/');
     }
 
-    private record UnPackCallback(IInArchive inArchive, Path outputDirectory, boolean discardSubDirectories) implements IArchiveExtractCallback {
+    private static final class UnPackCallback implements IArchiveExtractCallback {
+
+        private final IInArchive inArchive;
+
+        private final Path outputDirectory;
+
+        private final boolean discardSubDirectories;
+
+        /**
+         * Channel of the entry being extracted, it stays open for all the chunks of the entry, null if no entry is being extracted.
+         */
+        private FileChannel current;
+
+        private UnPackCallback(IInArchive inArchive, Path outputDirectory, boolean discardSubDirectories) {
+            super();
+            this.inArchive = inArchive;
+            this.outputDirectory = outputDirectory;
+            this.discardSubDirectories = discardSubDirectories;
+        }
 
         @Override
         public ISequentialOutStream getStream(int i, ExtractAskMode extractAskMode) throws SevenZipException {
-            var path = (String) this.inArchive.getProperty(i, PropID.PATH);
+            closeCurrent();
+            if (extractAskMode != ExtractAskMode.EXTRACT) {
+                return null;
+            }
+            var path = path(this.inArchive, i);
+            var folder = Boolean.TRUE.equals(this.inArchive.getProperty(i, PropID.IS_FOLDER));
+            if (folder && this.discardSubDirectories) {
+                return null;
+            }
             if(this.discardSubDirectories) {
                 var sub = path.split("/");
                 path = sub.length > 1 ? sub[sub.length - 1] : sub[0];
             }
-            var file = new File(this.outputDirectory.toAbsolutePath().toString(), path);
+            var file = this.outputDirectory.toAbsolutePath().resolve(path);
+            try {
+                if (folder) {
+                    Files.createDirectories(file);
+                    return null;
+                }
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                this.current = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new SevenZipException("Cannot create " + file, e);
+            }
+            var channel = this.current;
             return data -> {
-                try (var outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
-                    outputStream.write(data);
+                try {
+                    var buffer = ByteBuffer.wrap(data);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
                 } catch (IOException e) {
-                    LOGGER.log(System.Logger.Level.ERROR, "", e);
+                    throw new SevenZipException("Cannot write " + file, e);
                 }
                 return data.length;
             };
         }
 
+        /**
+         * Close the channel of the entry being extracted, if any.
+         *
+         * @throws SevenZipException If the channel cannot be closed.
+         */
+        private void closeCurrent() throws SevenZipException {
+            if (this.current != null) {
+                try {
+                    this.current.close();
+                } catch (IOException e) {
+                    throw new SevenZipException(e);
+                } finally {
+                    this.current = null;
+                }
+            }
+        }
+
         @Override
         public void prepareOperation(ExtractAskMode extractAskMode) {
             //Does nothing
         }
 
         @Override
-        public void setOperationResult(ExtractOperationResult extractOperationResult) {
-            //Does nothing
+        public void setOperationResult(ExtractOperationResult extractOperationResult) throws SevenZipException {
+            closeCurrent();
+            if (extractOperationResult != ExtractOperationResult.OK) {
+                LOGGER.log(System.Logger.Level.ERROR, "Entry extraction failed: {0}", extractOperationResult);
+            }
         }
 
         @Override
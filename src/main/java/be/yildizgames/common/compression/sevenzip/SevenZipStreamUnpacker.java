@@ -0,0 +1,136 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sevenzip;
+
+import be.yildizgames.common.compression.StreamUnpacker;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Unpack a 7z archive from a stream.
+ * The 7z entry table is at the end of the archive, so the stream is first read completely: kept in memory up to a
+ * threshold, spooled to a temporary file above it, the entries are extracted once the end of the stream is reached.
+ *
+ * @author Grégory Van den Borre
+ */
+public class SevenZipStreamUnpacker implements StreamUnpacker {
+
+    /**
+     * Default size up to which the archive is kept in memory.
+     */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 64 * 1024 * 1024;
+
+    /**
+     * Size of the buffer reused to copy every entry of an unpack operation.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Size up to which the archive is kept in memory, a bigger archive is spooled to a temporary file.
+     */
+    private final int memoryThreshold;
+
+    /**
+     * Create an unpacker keeping the archives up to 64MB in memory.
+     */
+    public SevenZipStreamUnpacker() {
+        this(DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * Create an unpacker with a specific memory threshold.
+     *
+     * @param memoryThreshold Size up to which the archive is kept in memory, 0 to always use a temporary file.
+     */
+    public SevenZipStreamUnpacker(int memoryThreshold) {
+        super();
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("Memory threshold cannot be negative: " + memoryThreshold);
+        }
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public final void unpack(InputStream archive, Path destination) {
+        Path spool = null;
+        try {
+            var memory = new ByteArrayOutputStream();
+            var buffer = new byte[BUFFER_SIZE];
+            int read;
+            while (memory.size() <= this.memoryThreshold && (read = archive.read(buffer)) != -1) {
+                memory.write(buffer, 0, read);
+            }
+            SeekableByteChannel channel;
+            if (memory.size() <= this.memoryThreshold) {
+                channel = new SeekableInMemoryByteChannel(memory.toByteArray());
+            } else {
+                spool = Files.createTempFile("yildiz-7z", ".7z");
+                try (var out = Files.newOutputStream(spool)) {
+                    memory.writeTo(out);
+                    memory = null;
+                    archive.transferTo(out);
+                }
+                channel = Files.newByteChannel(spool, StandardOpenOption.READ);
+            }
+            unpack(channel, destination, buffer);
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException ioe) {
+                    System.getLogger(SevenZipStreamUnpacker.class.getName()).log(System.Logger.Level.ERROR, "", ioe);
+                }
+            }
+        }
+    }
+
+    private static void unpack(SeekableByteChannel channel, Path destination, byte[] buffer) throws IOException {
+        var root = destination.toAbsolutePath().normalize();
+        try (var sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel).setTryToRecoverBrokenArchives(true).get()) {
+            Files.createDirectories(root);
+            SevenZArchiveEntry entry = sevenZFile.getNextEntry();
+            while (entry != null) {
+                var target = root.resolve(entry.getName()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IllegalStateException("Entry outside of the destination: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try (var out = Files.newOutputStream(target)) {
+                        int read;
+                        while ((read = sevenZFile.read(buffer, 0, buffer.length)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                    }
+                }
+                entry = sevenZFile.getNextEntry();
+            }
+        }
+    }
+}
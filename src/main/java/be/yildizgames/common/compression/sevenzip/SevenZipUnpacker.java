@@ -16,12 +16,27 @@
 package be.yildizgames.common.compression.sevenzip;
 
 import be.yildizgames.common.compression.Unpacker;
+import be.yildizgames.common.compression.sync.DestinationSync;
 import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
 import org.apache.commons.compress.archivers.sevenz.SevenZFile;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntPredicate;
 
 /**
  * This class is able to unpack files from the 7zip archive format.
@@ -30,12 +45,58 @@ import java.nio.file.Path;
  */
 public class SevenZipUnpacker implements Unpacker {
 
+    /**
+     * Size of the buffer reused to copy every entry of an unpack operation.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Executor running the workers, null to unpack sequentially on the calling thread.
+     */
+    private final Executor executor;
+
+    /**
+     * Number of workers for an unpack operation.
+     */
+    private final int workers;
+
+    /**
+     * Create an unpacker reading the entries sequentially.
+     */
+    public SevenZipUnpacker() {
+        super();
+        this.executor = null;
+        this.workers = 1;
+    }
+
+    /**
+     * Create an unpacker decoding the archive with several workers.
+     * Each worker opens its own reader and extracts a contiguous range of whole folders, the ranges are balanced by size.
+     * The entries before the range belong to other folders and are skipped without being decoded, so each folder is
+     * decoded once. An archive with a single folder, such as a solid archive, is extracted sequentially.
+     *
+     * @param executor Executor running the workers.
+     * @param workers  Number of workers, must be positive.
+     */
+    public SevenZipUnpacker(Executor executor, int workers) {
+        super();
+        if (workers < 1) {
+            throw new IllegalArgumentException("Worker number must be positive: " + workers);
+        }
+        this.executor = Objects.requireNonNull(executor);
+        this.workers = workers;
+    }
+
     @Override
     public final void unpack(Path archive, Path destination, boolean keepRootDir, boolean discardSubDirectories) {
+        if (this.executor != null && this.workers > 1 && unpackParallel(archive, destination, discardSubDirectories)) {
+            return;
+        }
         try (var sevenZFile = SevenZFile.builder().setPath(archive).setTryToRecoverBrokenArchives(true).get()) {
             if (Files.notExists(destination)) {
                 Files.createDirectories(destination);
             }
+            var buffer = new byte[BUFFER_SIZE];
             SevenZArchiveEntry entry = sevenZFile.getNextEntry();
             while (entry != null) {
                 if (entry.isDirectory()) {
@@ -48,7 +109,7 @@ public class SevenZipUnpacker implements Unpacker {
                         var fileOnly = sub.length > 1 ? sub[sub.length - 1] : sub[0];
                         entry.setName(fileOnly);
                     }
-                    unpackEntry(destination, sevenZFile, entry);
+                    unpackEntry(destination, sevenZFile, entry, buffer);
                 }
                 entry = sevenZFile.getNextEntry();
             }
@@ -68,11 +129,172 @@ public class SevenZipUnpacker implements Unpacker {
             if (Files.notExists(destination)) {
                 Files.createDirectories(destination);
             }
+            var buffer = new byte[BUFFER_SIZE];
             SevenZArchiveEntry entry = sevenZFile.getNextEntry();
             while (entry != null) {
                 if (entry.getName().equals(fileToExtract)) {
-                    unpackEntry(destination, sevenZFile, entry);
+                    unpackEntry(destination, sevenZFile, entry, buffer);
+                }
+                entry = sevenZFile.getNextEntry();
+            }
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    /**
+     * Extract the archive with several workers, each one extracting whole folders, so no folder is decoded twice.
+     *
+     * @return false if the archive has less than two folders, nothing is then extracted and the sequential unpack must be used.
+     */
+    private boolean unpackParallel(Path archive, Path destination, boolean discardSubDirectories) {
+        var files = new ArrayList<ParallelFile>();
+        var directories = new ArrayList<String>();
+        try {
+            var entries = new ArrayList<SevenZArchiveEntry>();
+            var folders = folders(archive, entries);
+            var folder = 0;
+            var folderCount = 0;
+            var withContent = false;
+            for (int index = 0; index < entries.size(); index++) {
+                var entry = entries.get(index);
+                if (entry.isDirectory()) {
+                    directories.add(entry.getName());
+                } else {
+                    withContent |= entry.hasStream();
+                    if (folders[index] >= 0) {
+                        folder = folders[index];
+                        folderCount = folder + 1;
+                    }
+                    // An entry without content is kept in the folder of the previous one, so it does not split it.
+                    files.add(new ParallelFile(index, folder, entry.getSize(), targetName(entry, discardSubDirectories)));
+                }
+            }
+            if (withContent && folderCount == 0) {
+                System.getLogger(SevenZipUnpacker.class.getName()).log(System.Logger.Level.WARNING,
+                        "Folders of " + archive + " not detected, it is extracted sequentially.");
+            }
+            if (folderCount < 2) {
+                return false;
+            }
+            Files.createDirectories(destination);
+            if (!discardSubDirectories) {
+                for (var directory : directories) {
+                    Files.createDirectories(destination.resolve(directory));
+                }
+            }
+            for (var file : files) {
+                var target = destination.resolve(file.target());
+                if (target.getParent() != null) {
+                    Files.createDirectories(target.getParent());
+                }
+            }
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+        var targets = new HashMap<String, Integer>();
+        files.forEach(f -> targets.merge(f.target(), 1, Integer::sum));
+        var duplicates = new HashSet<Integer>();
+        files.stream().filter(f -> targets.get(f.target()) > 1).forEach(f -> duplicates.add(f.index()));
+        var futures = ranges(files.stream().filter(f -> !duplicates.contains(f.index())).toList()).stream()
+                .map(r -> CompletableFuture.runAsync(() -> unpackRange(archive, destination, discardSubDirectories, r, duplicates::contains), this.executor))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalStateException ise) {
+                throw ise;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        if (!duplicates.isEmpty()) {
+            // Entries flattened to the same file are extracted in the archive order, so the last one wins as in the sequential unpack.
+            var first = duplicates.stream().mapToInt(Integer::intValue).min().orElseThrow();
+            var last = duplicates.stream().mapToInt(Integer::intValue).max().orElseThrow();
+            unpackRange(archive, destination, discardSubDirectories, new Range(first, last), i -> !duplicates.contains(i));
+        }
+        return true;
+    }
+
+    /**
+     * Walk the entries of an archive to find the folder of each one.
+     * commons-compress does not expose the folders, the folder change is detected through the archive channel, positioned
+     * at the packed data of a folder when moving to its first entry, see {@link FolderTrackingChannel}.
+     * A wrong detection only unbalances the workers: every entry belongs to a single range, so it is still extracted
+     * exactly once, at worst a folder split between two ranges is decoded by both workers.
+     *
+     * @param archive Archive to read.
+     * @param entries List receiving the entries, in the archive order.
+     * @return The folder of each entry, in the archive order, -1 for an entry without content.
+     * @throws IOException If the archive cannot be read.
+     */
+    static int[] folders(Path archive, List<SevenZArchiveEntry> entries) throws IOException {
+        try (var channel = new FolderTrackingChannel(FileChannel.open(archive, StandardOpenOption.READ));
+             var sevenZFile = SevenZFile.builder().setSeekableByteChannel(channel).setTryToRecoverBrokenArchives(true).get()) {
+            var folders = new ArrayList<Integer>();
+            var currentOffset = -1L;
+            var folder = -1;
+            SevenZArchiveEntry entry;
+            while ((entry = sevenZFile.getNextEntry()) != null) {
+                if (entry.hasStream() && channel.folderOffset != currentOffset) {
+                    currentOffset = channel.folderOffset;
+                    folder++;
+                }
+                entries.add(entry);
+                folders.add(entry.hasStream() ? folder : -1);
+            }
+            return folders.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Split the files in contiguous ranges of whole folders, of similar total size, one per worker.
+     *
+     * @param files Files to extract, in the archive order.
+     * @return The ranges of entry indexes.
+     */
+    private List<Range> ranges(List<ParallelFile> files) {
+        var total = files.stream().mapToLong(ParallelFile::size).sum();
+        var target = Math.max(1, total / this.workers);
+        var ranges = new ArrayList<Range>();
+        var first = -1;
+        long size = 0;
+        for (int i = 0; i < files.size(); i++) {
+            var file = files.get(i);
+            if (first == -1) {
+                first = file.index();
+            }
+            size += file.size();
+            var folderEnd = i == files.size() - 1 || files.get(i + 1).folder() != file.folder();
+            if (folderEnd && size >= target && ranges.size() < this.workers - 1) {
+                ranges.add(new Range(first, file.index()));
+                first = -1;
+                size = 0;
+            }
+        }
+        if (first != -1) {
+            ranges.add(new Range(first, files.get(files.size() - 1).index()));
+        }
+        return ranges;
+    }
+
+    /**
+     * Extract a range of files with a reader of its own, run by a worker.
+     * The entries before the range belong to other folders and are skipped without being decoded.
+     *
+     * @param excluded Entries of the range not to extract.
+     */
+    private void unpackRange(Path archive, Path destination, boolean discardSubDirectories, Range range, IntPredicate excluded) {
+        try (var sevenZFile = open(archive)) {
+            var buffer = new byte[BUFFER_SIZE];
+            int index = 0;
+            SevenZArchiveEntry entry = sevenZFile.getNextEntry();
+            while (entry != null && index <= range.last()) {
+                if (index >= range.first() && !entry.isDirectory() && !excluded.test(index)) {
+                    entry.setName(targetName(entry, discardSubDirectories));
+                    unpackEntry(destination, sevenZFile, entry, buffer);
                 }
+                index++;
                 entry = sevenZFile.getNextEntry();
             }
         } catch (IOException ioe) {
@@ -80,18 +302,245 @@ public class SevenZipUnpacker implements Unpacker {
         }
     }
 
-    private void unpackEntry(Path destination, SevenZFile sevenZFile, SevenZArchiveEntry entry) {
+    private static SevenZFile open(Path archive) throws IOException {
+        return SevenZFile.builder().setPath(archive).setTryToRecoverBrokenArchives(true).get();
+    }
+
+    private static String targetName(SevenZArchiveEntry entry, boolean discardSubDirectories) {
+        if (!discardSubDirectories) {
+            return entry.getName();
+        }
+        var sub = entry.getName().split("/");
+        return sub.length > 1 ? sub[sub.length - 1] : sub[0];
+    }
+
+    /**
+     * Copy the current entry content to its destination file, through a fixed size buffer, so the memory used
+     * does not depend on the entry size.
+     *
+     * @param destination Directory where the entry is written.
+     * @param sevenZFile  Archive positioned on the entry.
+     * @param entry       Entry to write.
+     * @param buffer      Buffer used for the copy.
+     */
+    private void unpackEntry(Path destination, SevenZFile sevenZFile, SevenZArchiveEntry entry, byte[] buffer) {
         try (var out = Files.newOutputStream(destination.resolve(entry.getName()))) {
-            byte[] content = new byte[(int) entry.getSize()];
-            sevenZFile.read(content, 0, content.length);
-            out.write(content);
+            int read;
+            while ((read = sevenZFile.read(buffer, 0, buffer.length)) != -1) {
+                out.write(buffer, 0, read);
+            }
         } catch (final IOException ioe) {
             throw new IllegalStateException(ioe);
         }
     }
 
+    /**
+     * Extract a directory and its content, keeping its path in the archive.
+     * The entry table is read first to find the last matching entry, the reading stops after it.
+     * Entries outside the directory are skipped without being read, commons-compress only decodes a folder when one of
+     * its entries is read, so the folders without matching entry are never decompressed.
+     *
+     * @param archive            Archive to read.
+     * @param directoryToExtract Directory to extract.
+     * @param destination        Directory where the content is extracted.
+     */
     @Override
     public final void unpackDirectoryToDirectory(Path archive, String directoryToExtract, Path destination) {
-        throw new UnsupportedOperationException();
+        var prefix = directoryToExtract + "/";
+        try (var sevenZFile = open(archive)) {
+            var last = -1;
+            var index = 0;
+            for (var entry : sevenZFile.getEntries()) {
+                if (entry.getName().startsWith(prefix)) {
+                    last = index;
+                }
+                index++;
+            }
+            Files.createDirectories(destination);
+            var buffer = new byte[BUFFER_SIZE];
+            index = 0;
+            SevenZArchiveEntry entry = sevenZFile.getNextEntry();
+            while (entry != null && index <= last) {
+                if (entry.getName().startsWith(prefix)) {
+                    var target = destination.resolve(entry.getName());
+                    if (entry.isDirectory()) {
+                        Files.createDirectories(target);
+                    } else {
+                        if (target.getParent() != null) {
+                            Files.createDirectories(target.getParent());
+                        }
+                        unpackEntry(destination, sevenZFile, entry, buffer);
+                    }
+                }
+                index++;
+                entry = sevenZFile.getNextEntry();
+            }
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Error unpacking " + archive + ":" + destination, ioe);
+        }
+    }
+
+    /**
+     * Synchronize the destination with the archive, the entries are read sequentially, an up to date entry is skipped
+     * without being read, so its folder is only decoded if a later entry of the same folder has changed.
+     * Some writers, commons-compress included, only store a CRC per folder, an entry without CRC matching the size of
+     * the existing file is decoded and compared to it, the file is only written if they differ.
+     *
+     * @param archive     Archive file to extract the data from.
+     * @param destination Path where the archive content is extracted.
+     * @param deleteStale true to delete the files of the destination which are not in the archive.
+     */
+    @Override
+    public final void sync(Path archive, Path destination, boolean deleteStale) {
+        try (var sevenZFile = open(archive)) {
+            var sync = new DestinationSync(destination);
+            Files.createDirectories(destination);
+            var buffer = new byte[BUFFER_SIZE];
+            SevenZArchiveEntry entry = sevenZFile.getNextEntry();
+            while (entry != null) {
+                var target = sync.target(entry.getName());
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else if (crc(entry) < 0 && Files.isRegularFile(target) && Files.size(target) == entry.getSize()) {
+                    patchEntry(target, sevenZFile, buffer);
+                } else if (!sync.isUpToDate(target, entry.getSize(), crc(entry))) {
+                    if (target.getParent() != null) {
+                        Files.createDirectories(target.getParent());
+                    }
+                    unpackEntry(destination, sevenZFile, entry, buffer);
+                }
+                entry = sevenZFile.getNextEntry();
+            }
+            if (deleteStale) {
+                sync.deleteStale();
+            }
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    /**
+     * Compare an entry without CRC to the existing file while it is decoded, the file is only written from the first
+     * difference, so an identical file is read but never written.
+     *
+     * @param target     Existing file, with the same size as the entry.
+     * @param sevenZFile Archive positioned on the entry.
+     * @param buffer     Buffer used for the copy.
+     * @throws IOException If the entry cannot be decoded or the file cannot be written.
+     */
+    private static void patchEntry(Path target, SevenZFile sevenZFile, byte[] buffer) throws IOException {
+        try (var channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var existing = ByteBuffer.allocate(buffer.length);
+            var same = true;
+            long position = 0;
+            int read;
+            while ((read = sevenZFile.read(buffer, 0, buffer.length)) != -1) {
+                if (same) {
+                    existing.clear().limit(read);
+                    while (existing.hasRemaining() && channel.read(existing, position + existing.position()) > 0) {
+                        //Fill the chunk to compare.
+                    }
+                    same = existing.position() == read && Arrays.equals(existing.array(), 0, read, buffer, 0, read);
+                }
+                if (!same) {
+                    var data = ByteBuffer.wrap(buffer, 0, read);
+                    while (data.hasRemaining()) {
+                        channel.write(data, position + data.position());
+                    }
+                }
+                position += read;
+            }
+        }
+    }
+
+    /**
+     * Provide the CRC of an entry, an empty file has no stream and no CRC, its CRC is the one of empty data.
+     *
+     * @return The entry CRC, -1 if unknown.
+     */
+    private static long crc(SevenZArchiveEntry entry) {
+        if (!entry.hasStream()) {
+            return 0;
+        }
+        return entry.getHasCrc() ? entry.getCrcValue() : -1;
+    }
+
+    /**
+     * Entries extracted by a worker, from the first to the last index, both included.
+     */
+    private record Range(int first, int last) {}
+
+    /**
+     * Channel recording the last position set, commons-compress does not expose the folder of an entry but positions
+     * the channel at the packed data of a folder when moving to its first entry, without reading anything until the
+     * entry content is read, so the folder of each entry is known by walking the entries.
+     * This relies on the reader implementation, the tests check the folders are still detected.
+     */
+    private static final class FolderTrackingChannel implements SeekableByteChannel {
+
+        private final FileChannel delegate;
+
+        /**
+         * Last position set, the offset of the packed data of the current folder once the entries are walked.
+         */
+        private long folderOffset = -1;
+
+        private FolderTrackingChannel(FileChannel delegate) {
+            super();
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return this.delegate.read(dst);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return this.delegate.write(src);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return this.delegate.position();
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            this.folderOffset = newPosition;
+            this.delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return this.delegate.size();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) throws IOException {
+            this.delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.delegate.close();
+        }
     }
+
+    /**
+     * A file to extract in parallel.
+     *
+     * @param index  Index of the entry in the archive.
+     * @param folder Folder containing the entry, in the archive order.
+     * @param size   Size of the file.
+     * @param target Name of the file in the destination.
+     */
+    private record ParallelFile(int index, int folder, long size, String target) {}
 }
@@ -0,0 +1,126 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sync;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Track the files of an extraction destination while an archive is synchronized into it.
+ * An entry is up to date when a file with the same size and the same CRC already exists, the size is compared first,
+ * so only the files with a matching size are read.
+ * All the entries of the archive are recorded, the files not belonging to the archive can then be deleted.
+ * An instance can be used by several threads at the same time.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class DestinationSync {
+
+    /**
+     * Size of the buffer used to compute the CRC of the existing files.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Destination directory, absolute and normalized.
+     */
+    private final Path root;
+
+    /**
+     * Paths of the files and directories from the archive.
+     */
+    private final Set<Path> expected = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a synchronization for a destination directory.
+     *
+     * @param destination Directory where the archive is extracted.
+     */
+    public DestinationSync(Path destination) {
+        super();
+        this.root = destination.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Provide the path where an entry is extracted, and record it as belonging to the archive.
+     *
+     * @param name Name of the entry in the archive.
+     * @return The target path in the destination.
+     */
+    public Path target(String name) {
+        var target = this.root.resolve(name).normalize();
+        this.expected.add(target);
+        return target;
+    }
+
+    /**
+     * Check if the file of an entry already exists with the same content.
+     *
+     * @param target Path of the entry in the destination.
+     * @param size   Size of the entry.
+     * @param crc    CRC32 of the entry, negative if the archive does not provide it, the entry is then never up to date.
+     * @return true if the existing file can be kept, false if the entry must be extracted.
+     * @throws IOException If the existing file cannot be read.
+     */
+    public boolean isUpToDate(Path target, long size, long crc) throws IOException {
+        if (crc < 0 || !Files.isRegularFile(target) || Files.size(target) != size) {
+            return false;
+        }
+        var checksum = new CRC32();
+        var buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                checksum.update(buffer, 0, read);
+            }
+        }
+        return checksum.getValue() == crc;
+    }
+
+    /**
+     * Delete the files and the directories of the destination which are not in the archive.
+     * A directory is kept if it still contains a file after the deletion.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    public void deleteStale() throws IOException {
+        if (Files.notExists(this.root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(this.root)) {
+            for (var path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                if (path.equals(this.root) || this.expected.contains(path)) {
+                    continue;
+                }
+                if (Files.isDirectory(path)) {
+                    try (var content = Files.list(path)) {
+                        if (content.findAny().isPresent()) {
+                            continue;
+                        }
+                    }
+                }
+                Files.delete(path);
+            }
+        }
+    }
+}
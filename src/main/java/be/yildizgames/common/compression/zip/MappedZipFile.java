@@ -0,0 +1,360 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.zip;
+
+import be.yildizgames.common.compression.ArchiveHandle;
+import be.yildizgames.common.compression.FileInfo;
+import be.yildizgames.common.compression.hash.FanOutHasher;
+import be.yildizgames.common.hashing.Algorithm;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Zip archive memory mapped for read mostly usage.
+ * The central directory is parsed directly from the mapping, stored entries are provided as slices of the mapping without
+ * any copy, and deflated entries are inflated straight from the mapped region.
+ * Archives up to 2GB are mapped at once, bigger archives are mapped entry by entry.
+ * The mapping is released by the garbage collector once the file is closed and no slice is referenced anymore.
+ *
+ * @author Grégory Van den Borre
+ */
+public class MappedZipFile implements ArchiveHandle {
+
+    /**
+     * Opened archive, only used for positional operations, so it is safe to share between threads.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Whole archive mapping, null if the archive is too big to be mapped at once.
+     */
+    private final ByteBuffer mapping;
+
+    /**
+     * Entries from the central directory, indexed by name, in the archive order.
+     */
+    private final Map<String, ZipCentralDirectory.Entry> entries;
+
+    /**
+     * Map an archive.
+     *
+     * @param archive Archive to open.
+     * @throws IllegalStateException If the archive cannot be opened or is not a valid zip file.
+     */
+    public MappedZipFile(Path archive) {
+        super();
+        try {
+            this.channel = FileChannel.open(archive, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open " + archive, e);
+        }
+        try {
+            var size = this.channel.size();
+            this.mapping = size <= Integer.MAX_VALUE ? this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+            this.entries = new LinkedHashMap<>();
+            for (var entry : ZipCentralDirectory.read(this.channel)) {
+                this.entries.putIfAbsent(entry.name(), entry);
+            }
+        } catch (IOException e) {
+            closeQuietly();
+            throw new IllegalStateException("Cannot open " + archive, e);
+        }
+    }
+
+    @Override
+    public final List<String> entries() {
+        return List.copyOf(this.entries.keySet());
+    }
+
+    @Override
+    public final boolean contains(String entry) {
+        return this.entries.containsKey(entry);
+    }
+
+    @Override
+    public final Optional<ByteBuffer> storedContent(String entry) {
+        var e = find(entry);
+        if (e.method() != ZipEntry.STORED) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(data(e));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Error reading " + entry, ex);
+        }
+    }
+
+    /**
+     * Open a stream on an entry content, stored entries are read from the mapping, deflated ones are inflated from it.
+     *
+     * @param entry Full name of the entry in the archive.
+     * @return The stream to read the entry, to be closed by the caller.
+     * @throws IllegalArgumentException If the entry does not exist.
+     * @throws IOException If the entry cannot be read.
+     */
+    public final InputStream open(String entry) throws IOException {
+        return open(find(entry));
+    }
+
+    @Override
+    public final void unpack(String fileToExtract, Path destination) {
+        var entry = find(fileToExtract);
+        try {
+            extract(entry, destination.resolve(fileToExtract));
+        } catch (IOException e) {
+            throw new IllegalStateException("Error unpacking " + fileToExtract + ":" + destination, e);
+        }
+    }
+
+    @Override
+    public final void unpack(Path destination) {
+        unpackMatching("", destination);
+    }
+
+    @Override
+    public final void unpackDirectoryToDirectory(String directoryToExtract, Path destination) {
+        unpackMatching(directoryToExtract + "/", destination);
+    }
+
+    @Override
+    public final List<FileInfo> getFileInfo(Algorithm... algorithms) {
+        if (algorithms == null || algorithms.length == 0) {
+            return this.entries.keySet().stream().map(n -> new FileInfo(n, List.of())).toList();
+        }
+        var result = new ArrayList<FileInfo>(this.entries.size());
+        try (var hasher = new FanOutHasher(algorithms)) {
+            for (var entry : this.entries.values()) {
+                try (var in = open(entry)) {
+                    result.add(new FileInfo(entry.name(), hasher.compute(in)));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public final void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Extract all the entries whose name starts with a prefix.
+     *
+     * @param prefix      Prefix of the entries to extract, empty to extract everything.
+     * @param destination Directory where the entries are extracted.
+     */
+    private void unpackMatching(String prefix, Path destination) {
+        try {
+            Files.createDirectories(destination);
+            for (var entry : this.entries.values()) {
+                if (entry.name().startsWith(prefix)) {
+                    extract(entry, destination.resolve(entry.name()));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error unpacking " + prefix + ":" + destination, e);
+        }
+    }
+
+    /**
+     * Write an entry to a file, stored data are written directly from the mapping.
+     *
+     * @param entry  Entry to extract.
+     * @param target File to create or replace.
+     * @throws IOException If the entry cannot be read or the file cannot be written.
+     */
+    private void extract(ZipCentralDirectory.Entry entry, Path target) throws IOException {
+        if (entry.isDirectory()) {
+            Files.createDirectories(target);
+            return;
+        }
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try (var out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (entry.method() == ZipEntry.STORED) {
+                var data = data(entry);
+                while (data.hasRemaining()) {
+                    out.write(data);
+                }
+            } else {
+                try (var in = open(entry)) {
+                    var buffer = new byte[8192];
+                    int len;
+                    while ((len = in.read(buffer)) != -1) {
+                        out.write(ByteBuffer.wrap(buffer, 0, len));
+                    }
+                }
+            }
+        }
+    }
+
+    private ZipCentralDirectory.Entry find(String entry) {
+        var e = this.entries.get(entry);
+        if (e == null) {
+            throw new IllegalArgumentException("Entry not found: " + entry);
+        }
+        return e;
+    }
+
+    private InputStream open(ZipCentralDirectory.Entry entry) throws IOException {
+        return switch (entry.method()) {
+            case ZipEntry.STORED -> new ByteBufferInputStream(data(entry));
+            case ZipEntry.DEFLATED -> new MappedInflaterInputStream(data(entry));
+            default -> throw new ZipException("Unsupported compression method " + entry.method() + " for " + entry.name());
+        };
+    }
+
+    /**
+     * Provide the compressed data of an entry, as a read only slice of the mapping.
+     *
+     * @param entry Entry to read.
+     * @return The compressed data, positioned at 0.
+     * @throws IOException If the entry is encrypted, too big to be mapped, or its local header is invalid.
+     */
+    private ByteBuffer data(ZipCentralDirectory.Entry entry) throws IOException {
+        if (entry.isEncrypted()) {
+            throw new ZipException("Encrypted entry not supported: " + entry.name());
+        }
+        if (entry.compressedSize() > Integer.MAX_VALUE) {
+            throw new ZipException("Entry too big to be mapped: " + entry.name());
+        }
+        var offset = ZipCentralDirectory.dataOffset(this.channel, entry);
+        var length = (int) entry.compressedSize();
+        if (this.mapping == null) {
+            return this.channel.map(FileChannel.MapMode.READ_ONLY, offset, length).asReadOnlyBuffer();
+        }
+        if (offset + length > this.mapping.capacity()) {
+            throw new ZipException("Entry data out of the archive: " + entry.name());
+        }
+        return this.mapping.slice((int) offset, length).asReadOnlyBuffer();
+    }
+
+    private void closeQuietly() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            System.getLogger(MappedZipFile.class.getName()).log(System.Logger.Level.WARNING, "Cannot close archive", e);
+        }
+    }
+
+    /**
+     * Read a byte buffer as a stream.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            super();
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? Byte.toUnsignedInt(this.buffer.get()) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            var count = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+
+    /**
+     * Inflate raw deflate data, the whole compressed input is given to the inflater at once from the mapping,
+     * so nothing is copied before inflating.
+     */
+    private static final class MappedInflaterInputStream extends InputStream {
+
+        private final Inflater inflater = new Inflater(true);
+
+        private MappedInflaterInputStream(ByteBuffer compressed) {
+            super();
+            this.inflater.setInput(compressed);
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : Byte.toUnsignedInt(b[0]);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            try {
+                int count;
+                while ((count = this.inflater.inflate(b, off, len)) == 0) {
+                    if (this.inflater.finished()) {
+                        return -1;
+                    }
+                    if (this.inflater.needsInput()) {
+                        throw new EOFException("Unexpected end of deflated data.");
+                    }
+                    if (this.inflater.needsDictionary()) {
+                        throw new ZipException("Deflate dictionary not supported.");
+                    }
+                }
+                return count;
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            this.inflater.end();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.zip;
+
+import be.yildizgames.common.compression.ArchiveHandle;
+import be.yildizgames.common.compression.FileInfo;
+import be.yildizgames.common.hashing.Algorithm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Zip archive kept open, the central directory is parsed once into a name index, so looking up an entry does not
+ * depend on the archive size, and extracting an entry only reads this entry.
+ * Listing, extraction and hashing reuse the same parsed entry table.
+ *
+ * @author Grégory Van den Borre
+ */
+public class ZipArchiveHandle implements ArchiveHandle {
+
+    /**
+     * Opened archive, it is safe to use from several threads, its entries are indexed by name.
+     */
+    private final ZipFile file;
+
+    /**
+     * Entries, in the archive order, read once from the central directory.
+     */
+    private final List<? extends ZipEntry> entries;
+
+    /**
+     * Open an archive.
+     *
+     * @param archive Archive to open.
+     * @throws IllegalStateException If the archive cannot be opened.
+     */
+    public ZipArchiveHandle(Path archive) {
+        super();
+        try {
+            this.file = new ZipFile(archive.toFile());
+            this.entries = Collections.list(this.file.entries());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open " + archive, e);
+        }
+    }
+
+    @Override
+    public final List<String> entries() {
+        return this.entries.stream().map(ZipEntry::getName).toList();
+    }
+
+    @Override
+    public final boolean contains(String entry) {
+        return this.fileEntry(entry) != null;
+    }
+
+    /**
+     * Open a stream on an entry content.
+     *
+     * @param entry Full name of the entry in the archive.
+     * @return The stream to read the entry, to be closed by the caller.
+     * @throws IllegalArgumentException If the entry does not exist.
+     * @throws IOException If the entry cannot be read.
+     */
+    public final InputStream open(String entry) throws IOException {
+        var zipEntry = this.fileEntry(entry);
+        if (zipEntry == null) {
+            throw new IllegalArgumentException("Entry not found: " + entry);
+        }
+        return this.file.getInputStream(zipEntry);
+    }
+
+    /**
+     * Find a file entry by its exact name.
+     *
+     * @param entry Full name of the entry in the archive.
+     * @return The entry, or null if no file entry has this name.
+     */
+    private ZipEntry fileEntry(String entry) {
+        var zipEntry = this.file.getEntry(entry);
+        //getEntry also finds the directory entry named entry + "/".
+        if (zipEntry == null || zipEntry.isDirectory() || !zipEntry.getName().equals(entry)) {
+            return null;
+        }
+        return zipEntry;
+    }
+
+    @Override
+    public final void unpack(String fileToExtract, Path destination) {
+        var target = destination.resolve(fileToExtract);
+        try (var in = open(fileToExtract)) {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error unpacking " + fileToExtract + ":" + destination, e);
+        }
+    }
+
+    @Override
+    public final void unpack(Path destination) {
+        unpackMatching("", destination);
+    }
+
+    @Override
+    public final void unpackDirectoryToDirectory(String directoryToExtract, Path destination) {
+        unpackMatching(directoryToExtract + "/", destination);
+    }
+
+    /**
+     * Extract all the entries whose name starts with a prefix.
+     *
+     * @param prefix      Prefix of the entries to extract, empty to extract everything.
+     * @param destination Directory where the entries are extracted.
+     */
+    private void unpackMatching(String prefix, Path destination) {
+        try {
+            Files.createDirectories(destination);
+            for (var entry : this.entries) {
+                if (entry.getName().startsWith(prefix)) {
+                    var target = destination.resolve(entry.getName());
+                    if (entry.isDirectory()) {
+                        Files.createDirectories(target);
+                    } else {
+                        if (target.getParent() != null) {
+                            Files.createDirectories(target.getParent());
+                        }
+                        try (var in = this.file.getInputStream(entry)) {
+                            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error unpacking " + prefix + ":" + destination, e);
+        }
+    }
+
+    @Override
+    public final List<FileInfo> getFileInfo(Algorithm... algorithms) {
+        try {
+            return ZipFileInfoRetriever.compute(this.file, this.entries, null, algorithms);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public final void close() {
+        try {
+            this.file.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
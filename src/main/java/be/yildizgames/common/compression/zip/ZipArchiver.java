@@ -15,65 +15,475 @@
 
 package be.yildizgames.common.compression.zip;
 
+import be.yildizgames.common.compression.ArchiveMerger;
+import be.yildizgames.common.compression.ArchiveUpdater;
 import be.yildizgames.common.compression.Archiver;
+import be.yildizgames.common.compression.CompressionOptions;
+import be.yildizgames.common.compression.filetype.IncompressibleContent;
+import org.apache.commons.compress.archivers.zip.DefaultBackingStoreSupplier;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntryRequest;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * @author Grégory Van den Borre
  */
-public class ZipArchiver implements Archiver {
+public class ZipArchiver implements Archiver, ArchiveUpdater, ArchiveMerger {
+
+    /**
+     * Size of the buffer reused to copy every file of a pack operation.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Number of threads deflating the entries, 1 to deflate them sequentially on the calling thread.
+     */
+    private final int threads;
+
+    /**
+     * Zip method for the entries, {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}.
+     */
+    private final int method;
+
+    /**
+     * Deflate level.
+     */
+    private final int level;
+
+    /**
+     * How the already compressed files are detected to store them.
+     */
+    private final CompressionOptions.IncompressibleDetection incompressible;
+
+    /**
+     * Create an archiver deflating the entries sequentially.
+     */
+    public ZipArchiver() {
+        this(CompressionOptions.defaults());
+    }
+
+    /**
+     * Create an archiver deflating the entries concurrently.
+     * Each entry is compressed in a temporary scatter file by a worker, the scatter files are then written
+     * in order in the destination archive, followed by the central directory.
+     *
+     * @param threads Number of worker threads used by each pack operation, must be positive.
+     */
+    public ZipArchiver(int threads) {
+        this(checkThreads(threads));
+    }
+
+    /**
+     * Create an archiver with specific settings, only the method, the level, the thread number and the incompressible
+     * detection are used.
+     * With more than one thread, the entries are deflated concurrently.
+     *
+     * @param options Compression settings, the method must be default, store or deflate.
+     * @throws IllegalArgumentException If the method is not supported by the zip format.
+     */
+    public ZipArchiver(CompressionOptions options) {
+        super();
+        this.method = switch (options.method()) {
+            case DEFAULT, DEFLATE -> ZipEntry.DEFLATED;
+            case STORE -> ZipEntry.STORED;
+            default -> throw new IllegalArgumentException("Method not supported for zip: " + options.method());
+        };
+        this.level = options.hasLevel() ? options.level() : Deflater.DEFAULT_COMPRESSION;
+        this.threads = Math.max(1, options.threads());
+        this.incompressible = options.incompressible();
+    }
+
+    private static CompressionOptions checkThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread number must be positive: " + threads);
+        }
+        return CompressionOptions.defaults().withThreads(threads);
+    }
 
     @Override
     public final void pack(Path file, Path destination) {
-        try(var zos = new ZipOutputStream(Files.newOutputStream(destination))) {
-            if(Files.isDirectory(file)) {
-                zipDirectory(file.toFile(), file.toFile().getName(), zos);
+        pack(List.of(file), destination);
+    }
+
+    /**
+     * Compress several files or directories in a single archive, every file is read only once and streamed
+     * into the archive, without staging.
+     * Each file is added at the archive root with its name, each directory is added at the archive root
+     * with its name and its content.
+     *
+     * @param file        Files and directories to compress.
+     * @param destination Compressed file.
+     */
+    @Override
+    public final void pack(List<Path> file, Path destination) {
+        try (var zos = new ZipArchiveOutputStream(destination)) {
+            write(entries(file), zos);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compress several files or directories in an archive written to a stream, the entries are followed by data
+     * descriptors, so the stream is never rewound and the first entries are sent while the next ones are compressed.
+     * With several threads, the entries are sent once all of them are compressed.
+     * Stored entries are read twice, to write their CRC in the local header as required by the zip format.
+     *
+     * @param file        Files and directories to compress.
+     * @param destination Stream receiving the archive, it is not closed.
+     */
+    @Override
+    public final void pack(List<Path> file, OutputStream destination) {
+        try (var zos = new ZipArchiveOutputStream(new NotClosingOutputStream(destination))) {
+            write(entries(file), zos);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Add or replace files in an existing archive.
+     * The compressed data of the kept entries is copied as is, with their CRC and sizes, only the new files are
+     * compressed, so the cost of an update depends on the size of the changes and not of the archive.
+     * The archive comment and, on POSIX file systems, the file permissions of the archive are kept.
+     *
+     * @param archive Archive to update.
+     * @param files   Files and directories to add or replace.
+     */
+    @Override
+    public final void update(Path archive, List<Path> files) {
+        var entries = entries(files);
+        var replaced = new HashSet<String>();
+        entries.forEach(e -> replaced.add(e.name()));
+        var parent = archive.toAbsolutePath().getParent();
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(parent, archive.getFileName().toString(), ".tmp");
+            try (var source = ZipFile.builder().setPath(archive).get(); var zos = new ZipArchiveOutputStream(temporary)) {
+                var comment = comment(archive);
+                if (comment != null) {
+                    zos.setComment(comment);
+                }
+                source.copyRawEntries(zos, entry -> !replaced.contains(entry.getName()));
+                write(entries, zos);
+            }
+            copyPermissions(archive, temporary);
+            replace(temporary, archive);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deleteTemporary(temporary);
+        }
+    }
+
+    /**
+     * Merge zip archives, the compressed data of every entry is copied as is, with its CRC and sizes, so the merge is
+     * bound by the I/O and not by the compression.
+     * The entry owners are resolved before writing, so a collision rejected by the policy leaves no destination file.
+     * The merged archive is written to a temporary file moved over the destination once complete, so the destination
+     * can be one of the merged archives and a failed merge leaves it untouched.
+     *
+     * @param archives    Archives to merge.
+     * @param destination Merged archive.
+     * @param policy      Policy to apply when a file entry name exists in several archives.
+     */
+    @Override
+    public final void merge(List<Path> archives, Path destination, CollisionPolicy policy) {
+        var sources = new ArrayList<ZipFile>();
+        Path temporary = null;
+        try {
+            for (var archive : archives) {
+                sources.add(ZipFile.builder().setPath(archive).get());
+            }
+            var owners = new HashMap<String, Integer>();
+            for (int i = 0; i < sources.size(); i++) {
+                var entries = sources.get(i).getEntries();
+                while (entries.hasMoreElements()) {
+                    var entry = entries.nextElement();
+                    var owner = owners.putIfAbsent(entry.getName(), i);
+                    if (owner == null || owner == i || entry.isDirectory()) {
+                        continue;
+                    }
+                    switch (policy) {
+                        case FAIL -> throw new IllegalArgumentException("Entry " + entry.getName() + " exists in " + archives.get(owner) + " and " + archives.get(i));
+                        case KEEP_LAST -> owners.put(entry.getName(), i);
+                        case KEEP_FIRST -> {
+                            //The first entry is already kept.
+                        }
+                    }
+                }
+            }
+            temporary = Files.createTempFile(destination.toAbsolutePath().getParent(), destination.getFileName().toString(), ".tmp");
+            try (var zos = new ZipArchiveOutputStream(temporary)) {
+                for (int i = 0; i < sources.size(); i++) {
+                    final int index = i;
+                    sources.get(i).copyRawEntries(zos, entry -> owners.get(entry.getName()) == index);
+                }
+            }
+            if (Files.exists(destination)) {
+                copyPermissions(destination, temporary);
+            } else if (!archives.isEmpty()) {
+                copyPermissions(archives.get(0), temporary);
+            }
+            replace(temporary, destination);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deleteTemporary(temporary);
+            for (var source : sources) {
+                try {
+                    source.close();
+                } catch (IOException e) {
+                    System.getLogger(ZipArchiver.class.getName()).log(System.Logger.Level.ERROR, "", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move a completed archive over the previous one, atomically if the file system supports it.
+     */
+    private static void replace(Path temporary, Path archive) throws IOException {
+        try {
+            Files.move(temporary, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, archive, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read the comment of an archive, commons ZipFile does not expose it.
+     */
+    private static String comment(Path archive) throws IOException {
+        try (var zip = new java.util.zip.ZipFile(archive.toFile())) {
+            return zip.getComment();
+        }
+    }
+
+    /**
+     * Give the temporary file the permissions of the archive it replaces, a temporary file is only readable by its owner.
+     */
+    private static void copyPermissions(Path archive, Path temporary) throws IOException {
+        var view = Files.getFileAttributeView(archive, PosixFileAttributeView.class);
+        if (view != null) {
+            Files.setPosixFilePermissions(temporary, view.readAttributes().permissions());
+        }
+    }
+
+    private static void deleteTemporary(Path temporary) {
+        if (temporary != null) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                System.getLogger(ZipArchiver.class.getName()).log(System.Logger.Level.ERROR, "", e);
+            }
+        }
+    }
+
+    private List<FileEntry> entries(List<Path> file) {
+        var entries = new ArrayList<FileEntry>();
+        for (var root : file) {
+            if(Files.isDirectory(root)) {
+                zipDirectory(root.toFile(), root.toFile().getName(), entries);
             } else {
-                doZip(file.getFileName().toString(), file.toFile(), zos);
+                entries.add(new FileEntry(root.getFileName().toString(), root.toFile()));
+            }
+        }
+        return entries;
+    }
+
+    private void write(List<FileEntry> entries, ZipArchiveOutputStream zos) throws IOException {
+        if (this.threads == 1) {
+            packSequential(entries, zos);
+        } else {
+            packParallel(entries, zos);
+        }
+        zos.finish();
+    }
+
+    private void packSequential(List<FileEntry> entries, ZipArchiveOutputStream zos) {
+        try {
+            zos.setMethod(this.method);
+            zos.setLevel(this.level);
+            var buffer = new byte[BUFFER_SIZE];
+            for (var entry : entries) {
+                doZip(entry.name(), entry.file(), zos, buffer);
             }
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
     }
 
-    @Override
-    public final void pack(List<Path> file, Path destination) {
-        throw new UnsupportedOperationException();
+    private void packParallel(List<FileEntry> entries, ZipArchiveOutputStream zos) {
+        var executor = Executors.newFixedThreadPool(this.threads);
+        try {
+            var creator = new ParallelScatterZipCreator(executor, new DefaultBackingStoreSupplier(null), this.level);
+            for (var entry : entries) {
+                creator.addArchiveEntry(() -> request(entry));
+            }
+            creator.writeTo(zos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Build the request to compress an entry, called by the worker threads, so the sample used to choose the method
+     * is read in parallel too.
+     *
+     * @param entry File to compress.
+     * @return The request with the entry method set.
+     */
+    private ZipArchiveEntryRequest request(FileEntry entry) {
+        var in = open(entry.file());
+        var zipEntry = new ZipArchiveEntry(entry.name());
+        zipEntry.setTime(entry.file().lastModified());
+        try {
+            in.mark(IncompressibleContent.SAMPLE_SIZE);
+            var sample = in.readNBytes(IncompressibleContent.SAMPLE_SIZE);
+            in.reset();
+            zipEntry.setMethod(methodFor(sample, sample.length));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ZipArchiveEntryRequest.createZipArchiveEntryRequest(zipEntry, () -> in);
     }
 
-    private void zipDirectory(File folder, String parentFolder,
-                              ZipOutputStream zos) throws IOException {
+    /**
+     * Choose the method for an entry, already compressed content is stored.
+     *
+     * @param sample Buffer containing the first bytes of the file.
+     * @param length Number of bytes in the sample.
+     * @return The zip method to use.
+     */
+    private int methodFor(byte[] sample, int length) {
+        if (this.method == ZipEntry.STORED || this.incompressible == CompressionOptions.IncompressibleDetection.NONE) {
+            return this.method;
+        }
+        var checkEntropy = this.incompressible == CompressionOptions.IncompressibleDetection.FILE_TYPE_AND_ENTROPY;
+        return IncompressibleContent.is(sample, length, checkEntropy) ? ZipEntry.STORED : this.method;
+    }
+
+    private static BufferedInputStream open(File file) {
+        try {
+            return new BufferedInputStream(new FileInputStream(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void zipDirectory(File folder, String parentFolder, List<FileEntry> entries) {
         var files = folder.listFiles();
         if (files != null) {
             for (File file : files) {
                 if (file.isDirectory()) {
-                    zipDirectory(file, parentFolder + "/" + file.getName(), zos);
+                    zipDirectory(file, parentFolder + "/" + file.getName(), entries);
                     continue;
                 }
-                doZip(parentFolder + "/" + file.getName(), file, zos);
+                entries.add(new FileEntry(parentFolder + "/" + file.getName(), file));
             }
         }
 
     }
 
-    private void doZip(String name, File file, ZipOutputStream zos) throws IOException {
-        zos.putNextEntry(new ZipEntry(name));
-        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file))) {
-            byte[] bytesIn = new byte[4096];
+    private void doZip(String name, File file, ZipArchiveOutputStream zos, byte[] buffer) throws IOException {
+        var entry = new ZipArchiveEntry(name);
+        entry.setTime(file.lastModified());
+        try (var in = new FileInputStream(file)) {
+            int read = in.readNBytes(buffer, 0, IncompressibleContent.SAMPLE_SIZE);
+            entry.setMethod(methodFor(buffer, read));
+            if (!zos.isSeekable()) {
+                prepareForStream(entry, file);
+            }
+            zos.putArchiveEntry(entry);
+            zos.write(buffer, 0, read);
+            while ((read = in.read(buffer)) != -1) {
+                zos.write(buffer, 0, read);
+            }
+        }
+        zos.closeArchiveEntry();
+    }
+
+    /**
+     * A file to add in the archive and its entry name.
+     */
+    private record FileEntry(String name, File file) {}
+
+    /**
+     * Set what must be known before writing an entry to a stream that cannot be rewound: the size of every entry, so
+     * the ZIP64 extra field is added to the local header when the file is 4GB or more, and the CRC of a stored entry.
+     *
+     * @param entry Entry to write, with its method set.
+     * @param file  File to write in the entry.
+     * @throws IOException If the file cannot be read.
+     */
+    static void prepareForStream(ZipArchiveEntry entry, File file) throws IOException {
+        entry.setSize(file.length());
+        if (entry.getMethod() == ZipEntry.STORED) {
+            entry.setCrc(crc(file));
+        }
+    }
+
+    /**
+     * Compute the CRC of a file, required before writing a stored entry to a stream that cannot be rewound.
+     */
+    private static long crc(File file) throws IOException {
+        var buffer = new byte[BUFFER_SIZE];
+        var crc = new CRC32();
+        try (var in = new FileInputStream(file)) {
             int read;
-            while ((read = bis.read(bytesIn)) != -1) {
-                zos.write(bytesIn, 0, read);
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
             }
         }
-        zos.closeEntry();
+        return crc.getValue();
+    }
+
+    /**
+     * Keep the caller stream open when the zip stream is closed.
+     */
+    private static final class NotClosingOutputStream extends FilterOutputStream {
+
+        private NotClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.out.flush();
+        }
     }
 }
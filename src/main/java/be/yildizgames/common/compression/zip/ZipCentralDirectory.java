@@ -0,0 +1,216 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.zip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Read the central directory of a zip archive, to know where the data of each entry is located in the file.
+ * ZIP64 archives are supported, multi disk and encrypted archives are not.
+ *
+ * @author Grégory Van den Borre
+ */
+final class ZipCentralDirectory {
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int END_SIZE = 22;
+
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+    private static final int ZIP64_END_SIZE = 56;
+
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+
+    private static final int CENTRAL_SIZE = 46;
+
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+
+    private static final int LOCAL_SIZE = 30;
+
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    private static final int MAX_16 = 0xFFFF;
+
+    /**
+     * Maximum size of the end of central directory record with its comment.
+     */
+    private static final int MAX_END_SIZE = END_SIZE + MAX_16;
+
+    private ZipCentralDirectory() {
+        super();
+    }
+
+    /**
+     * Read all the entries from the central directory, the central directory is mapped in memory and parsed directly from the mapping.
+     * The local header offsets of the entries are positions in the file, including the data prepended to the archive if any.
+     *
+     * @param channel Archive file.
+     * @return The entries, in the central directory order.
+     * @throws IOException If the file cannot be read or is not a valid zip archive.
+     */
+    static List<Entry> read(FileChannel channel) throws IOException {
+        var fileSize = channel.size();
+        var tailSize = (int) Math.min(fileSize, MAX_END_SIZE + ZIP64_LOCATOR_SIZE);
+        var tailStart = fileSize - tailSize;
+        var tail = channel.map(FileChannel.MapMode.READ_ONLY, tailStart, tailSize).order(ByteOrder.LITTLE_ENDIAN);
+        var end = findEnd(tail);
+        long count = Short.toUnsignedInt(tail.getShort(end + 10));
+        long size = Integer.toUnsignedLong(tail.getInt(end + 12));
+        long offset = Integer.toUnsignedLong(tail.getInt(end + 16));
+        //The central directory is followed by the ZIP64 end record if any, or by the end record.
+        long centralEnd = tailStart + end;
+        if ((count == MAX_16 || size == MAX_32 || offset == MAX_32) && end >= ZIP64_LOCATOR_SIZE
+                && tail.getInt(end - ZIP64_LOCATOR_SIZE) == ZIP64_LOCATOR_SIGNATURE) {
+            centralEnd = tail.getLong(end - ZIP64_LOCATOR_SIZE + 8);
+            var zip64End = centralEnd + ZIP64_END_SIZE <= fileSize ? read(channel, centralEnd, ZIP64_END_SIZE) : null;
+            if (zip64End == null || zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+                //The locator offset does not account for data prepended to the archive, the record is then found before the locator.
+                centralEnd = tailStart + end - ZIP64_LOCATOR_SIZE - ZIP64_END_SIZE;
+                zip64End = centralEnd >= 0 ? read(channel, centralEnd, ZIP64_END_SIZE) : null;
+            }
+            if (zip64End == null || zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+                throw new ZipException("Invalid ZIP64 end of central directory.");
+            }
+            count = zip64End.getLong(32);
+            size = zip64End.getLong(40);
+            offset = zip64End.getLong(48);
+        }
+        //Data prepended to the archive, as in a self extracting archive, shift all the offsets, as in java.util.zip.ZipFile.
+        long prefix = centralEnd - size - offset;
+        if (size > Integer.MAX_VALUE || prefix < 0) {
+            throw new ZipException("Invalid central directory size: " + size);
+        }
+        var central = channel.map(FileChannel.MapMode.READ_ONLY, offset + prefix, size).order(ByteOrder.LITTLE_ENDIAN);
+        return parse(central, count, prefix);
+    }
+
+    /**
+     * Compute the position of the data of an entry, from its local header.
+     *
+     * @param channel Archive file.
+     * @param entry   Entry to locate.
+     * @return The position of the first byte of the entry data in the file.
+     * @throws IOException If the local header cannot be read or is invalid.
+     */
+    static long dataOffset(FileChannel channel, Entry entry) throws IOException {
+        var local = read(channel, entry.localHeaderOffset(), LOCAL_SIZE);
+        if (local.getInt(0) != LOCAL_SIGNATURE) {
+            throw new ZipException("Invalid local header for " + entry.name());
+        }
+        return entry.localHeaderOffset() + LOCAL_SIZE + Short.toUnsignedInt(local.getShort(26)) + Short.toUnsignedInt(local.getShort(28));
+    }
+
+    private static int findEnd(ByteBuffer tail) throws ZipException {
+        for (int i = tail.limit() - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE) {
+                return i;
+            }
+        }
+        throw new ZipException("End of central directory not found.");
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        var buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new ZipException("Unexpected end of file.");
+            }
+        }
+        return buffer;
+    }
+
+    private static List<Entry> parse(ByteBuffer central, long count, long prefix) throws ZipException {
+        var entries = new ArrayList<Entry>((int) Math.min(count, 1 << 16));
+        int position = 0;
+        while (position + CENTRAL_SIZE <= central.limit() && central.getInt(position) == CENTRAL_SIGNATURE) {
+            int flags = Short.toUnsignedInt(central.getShort(position + 8));
+            int method = Short.toUnsignedInt(central.getShort(position + 10));
+            long crc = Integer.toUnsignedLong(central.getInt(position + 16));
+            long compressedSize = Integer.toUnsignedLong(central.getInt(position + 20));
+            long size = Integer.toUnsignedLong(central.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(central.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(central.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(central.getShort(position + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(central.getInt(position + 42));
+            var nameBytes = new byte[nameLength];
+            central.get(position + CENTRAL_SIZE, nameBytes);
+            var name = new String(nameBytes, StandardCharsets.UTF_8);
+            int extra = position + CENTRAL_SIZE + nameLength;
+            int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                int id = Short.toUnsignedInt(central.getShort(extra));
+                int length = Short.toUnsignedInt(central.getShort(extra + 2));
+                if (id == ZIP64_EXTRA_ID) {
+                    int field = extra + 4;
+                    if (size == MAX_32) {
+                        size = central.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == MAX_32) {
+                        compressedSize = central.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == MAX_32) {
+                        localHeaderOffset = central.getLong(field);
+                    }
+                }
+                extra += 4 + length;
+            }
+            entries.add(new Entry(name, flags, method, crc, compressedSize, size, localHeaderOffset + prefix));
+            position = extraEnd + commentLength;
+        }
+        if (entries.size() != count) {
+            throw new ZipException("Invalid central directory, expected " + count + " entries, found " + entries.size());
+        }
+        return entries;
+    }
+
+    /**
+     * An entry as described in the central directory.
+     *
+     * @param name              Entry name.
+     * @param flags             General purpose flags.
+     * @param method            Compression method, {@link java.util.zip.ZipEntry#STORED} or {@link java.util.zip.ZipEntry#DEFLATED}.
+     * @param crc               CRC32 of the uncompressed data.
+     * @param compressedSize    Size of the data in the archive.
+     * @param size              Size of the uncompressed data.
+     * @param localHeaderOffset Position of the local header in the file.
+     */
+    record Entry(String name, int flags, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+
+        boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+
+        boolean isEncrypted() {
+            return (this.flags & 1) != 0;
+        }
+    }
+}
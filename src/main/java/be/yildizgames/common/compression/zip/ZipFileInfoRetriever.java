@@ -17,15 +17,19 @@ package be.yildizgames.common.compression.zip;
 
 import be.yildizgames.common.compression.FileInfo;
 import be.yildizgames.common.compression.FileInfoRetriever;
+import be.yildizgames.common.compression.hash.FanOutHasher;
 import be.yildizgames.common.hashing.Algorithm;
-import be.yildizgames.common.hashing.HashingFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Enumeration;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -36,33 +40,102 @@ public class ZipFileInfoRetriever implements FileInfoRetriever {
 
     private final Path path;
 
+    /**
+     * Executor hashing the entries, null to hash them one by one on the calling thread.
+     */
+    private final Executor executor;
+
     public ZipFileInfoRetriever(Path path) {
         super();
         this.path = path;
+        this.executor = null;
+    }
+
+    /**
+     * Create a retriever hashing the entries concurrently, zip entries are compressed independently so each one can
+     * be inflated by a different worker.
+     *
+     * @param path     Path of the archive.
+     * @param executor Executor running the hashing tasks.
+     */
+    public ZipFileInfoRetriever(Path path, Executor executor) {
+        super();
+        this.path = path;
+        this.executor = Objects.requireNonNull(executor);
     }
 
+    /**
+     * Provide a list of FileInfo for the archive, each entry is inflated only once, whatever the number of algorithms.
+     *
+     * @param algorithms List of algorithm to compute the FileInfo hashes, can be null or empty.
+     * @return The computed list of FileInfo, in the archive order.
+     */
     @Override
     public final List<FileInfo> getFileInfo(Algorithm... algorithms) {
-        if (algorithms == null) {
-            algorithms = new Algorithm[0];
-        }
-        var result = new ArrayList<FileInfo>();
         try (ZipFile zip = new ZipFile(path.toFile())) {
-            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
-                ZipEntry entry = e.nextElement();
-                result.add(new FileInfo(entry.getName(), Arrays.stream(algorithms).map(
-                        a -> {
-                            try {
-                                return HashingFactory.get(a).compute(zip.getInputStream(entry));
-                            } catch (IOException ex) {
-                                throw new IllegalStateException(ex);
-                            }
-                        }
-                ).toList()));
-            }
+            return compute(zip, Collections.list(zip.entries()), this.executor, algorithms);
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
-        return result;
+    }
+
+    /**
+     * Compute the file info of entries from an opened archive, each entry is inflated only once.
+     *
+     * @param zip        Opened archive.
+     * @param entries    Entries to compute.
+     * @param executor   Executor hashing the entries, null to hash them on the calling thread.
+     * @param algorithms Algorithms to compute, can be null or empty.
+     * @return The computed list of FileInfo, in the entries order.
+     * @throws IOException If an entry cannot be read.
+     */
+    static List<FileInfo> compute(ZipFile zip, List<? extends ZipEntry> entries, Executor executor, Algorithm... algorithms) throws IOException {
+        if (algorithms == null || algorithms.length == 0) {
+            return entries.stream().map(e -> new FileInfo(e.getName(), List.of())).toList();
+        }
+        try (var hasher = new FanOutHasher(algorithms)) {
+            if (executor == null) {
+                var result = new ArrayList<FileInfo>();
+                for (var entry : entries) {
+                    result.add(hash(zip, entry, hasher));
+                }
+                return result;
+            }
+            var futures = entries.stream()
+                    .map(e -> CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return hash(zip, e, hasher);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }, executor))
+                    .toList();
+            awaitAll(futures);
+            return futures.stream().map(CompletableFuture::join).toList();
+        }
+    }
+
+    /**
+     * Wait for all the tasks, including when one of them fails, so none is still reading the archive or using the
+     * hasher once they are closed.
+     *
+     * @param futures Tasks to wait for.
+     * @throws IOException If a task could not read its entry.
+     */
+    private static void awaitAll(List<CompletableFuture<FileInfo>> futures) throws IOException {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static FileInfo hash(ZipFile zip, ZipEntry entry, FanOutHasher hasher) throws IOException {
+        try (var in = zip.getInputStream(entry)) {
+            return new FileInfo(entry.getName(), hasher.compute(in));
+        }
     }
 }
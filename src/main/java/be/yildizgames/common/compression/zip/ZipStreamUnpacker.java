@@ -0,0 +1,87 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.zip;
+
+import be.yildizgames.common.compression.StreamUnpacker;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unpack a zip archive from a stream, reading the local header of each entry, so every entry is extracted as soon as
+ * its data has been received, without waiting for the central directory at the end of the archive.
+ * Stored entries followed by a data descriptor are accepted.
+ *
+ * @author Grégory Van den Borre
+ */
+public class ZipStreamUnpacker implements StreamUnpacker {
+
+    /**
+     * Size of the buffer reused to copy every entry of an unpack operation.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public final void unpack(InputStream archive, Path destination) {
+        var root = destination.toAbsolutePath().normalize();
+        try (var zis = new ZipArchiveInputStream(new NotClosingInputStream(archive), StandardCharsets.UTF_8.name(), true, true)) {
+            Files.createDirectories(root);
+            var buffer = new byte[BUFFER_SIZE];
+            ZipArchiveEntry entry = zis.getNextEntry();
+            while (entry != null) {
+                var target = root.resolve(entry.getName()).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IllegalStateException("Entry outside of the destination: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try (var out = Files.newOutputStream(target)) {
+                        int read;
+                        while ((read = zis.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                    }
+                }
+                entry = zis.getNextEntry();
+            }
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    /**
+     * Keep the caller stream open when the zip stream is closed.
+     */
+    private static final class NotClosingInputStream extends FilterInputStream {
+
+        private NotClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // The stream belongs to the caller.
+        }
+    }
+}
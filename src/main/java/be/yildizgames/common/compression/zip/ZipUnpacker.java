@@ -16,15 +16,29 @@
 package be.yildizgames.common.compression.zip;
 
 import be.yildizgames.common.compression.Unpacker;
+import be.yildizgames.common.compression.sync.DestinationSync;
 
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -38,12 +52,37 @@ public class ZipUnpacker implements Unpacker {
      */
     private static final int BUFFER_SIZE = 1024;
 
+    /**
+     * Executor running the entries extraction, null to extract them one by one on the calling thread.
+     */
+    private final Executor executor;
+
+    /**
+     * Create an unpacker extracting the entries sequentially.
+     */
+    public ZipUnpacker() {
+        super();
+        this.executor = null;
+    }
+
+    /**
+     * Create an unpacker extracting the entries concurrently.
+     * Directories are created before any entry is submitted, so the tasks are independent from each other.
+     *
+     * @param executor Executor running the extraction tasks, a fork join pool or a virtual thread executor for example.
+     */
+    public ZipUnpacker(Executor executor) {
+        super();
+        this.executor = Objects.requireNonNull(executor);
+    }
 
     @Override
     public final void unpack(Path archive, Path destination, boolean keepRootDir) {
-        try (ZipFile file = new ZipFile(URLDecoder.decode(archive.toAbsolutePath().toString(), StandardCharsets.UTF_8))) {
+        var source = resolve(archive);
+        try (ZipFile file = new ZipFile(source.toFile())) {
             String rootDir = "";
             Files.createDirectories(destination);
+            var tasks = new ArrayList<ExtractTask>();
             Enumeration<? extends ZipEntry> entries = file.entries();
             while (entries.hasMoreElements()) {
                 ZipEntry zipentry = entries.nextElement();
@@ -63,11 +102,12 @@ public class ZipUnpacker implements Unpacker {
                     if(current.getParent() != null) {
                         Files.createDirectories(current.getParent());
                     }
-                    try(InputStream in = file.getInputStream(zipentry); OutputStream out = Files.newOutputStream(current)) {
-                        extractFile(in, out);
-                    }
+                    tasks.add(new ExtractTask(zipentry, current));
                 }
             }
+            try (var stored = StoredTransfer.open(source, tasks.stream().map(ExtractTask::entry).toList())) {
+                extractAll(file, stored, tasks);
+            }
         } catch (IOException ioe) {
             throw new IllegalStateException(ioe);
         }
@@ -80,16 +120,15 @@ public class ZipUnpacker implements Unpacker {
 
     @Override
     public final void unpack(Path archive, String fileToExtract, Path destination) {
-        try (ZipFile file = new ZipFile(URLDecoder.decode(archive.toAbsolutePath().toString(), StandardCharsets.UTF_8))) {
+        var source = resolve(archive);
+        try (ZipFile file = new ZipFile(source.toFile())) {
             Files.createDirectories(destination);
-            Enumeration<? extends ZipEntry> entries = file.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry zipentry = entries.nextElement();
-                if(zipentry.getName().equals(fileToExtract)) {
-                   try(InputStream in = file.getInputStream(zipentry); OutputStream out = Files.newOutputStream(destination.resolve(fileToExtract))) {
-                        extractFile(in, out);
-                    }
-                }
+            ZipEntry zipentry = file.getEntry(fileToExtract);
+            // getEntry also finds the directory entry named fileToExtract + "/", only an exact file match is extracted.
+            if (zipentry != null && !zipentry.isDirectory() && zipentry.getName().equals(fileToExtract)) {
+                // A single entry is read from the already opened file, parsing the central directory again to transfer
+                // it would cost more than the copy for a large archive.
+                extractEntry(file, StoredTransfer.NONE, new ExtractTask(zipentry, destination.resolve(fileToExtract)));
             }
         } catch (IOException ioe) {
             throw new IllegalStateException(ioe);
@@ -98,8 +137,10 @@ public class ZipUnpacker implements Unpacker {
 
     @Override
     public final void unpackDirectoryToDirectory(Path archive, String directoryToExtract, Path destination) {
-        try (ZipFile file = new ZipFile(URLDecoder.decode(archive.toAbsolutePath().toString(), StandardCharsets.UTF_8))) {
+        var source = resolve(archive);
+        try (ZipFile file = new ZipFile(source.toFile())) {
             Files.createDirectories(destination);
+            var tasks = new ArrayList<ExtractTask>();
             Enumeration<? extends ZipEntry> entries = file.entries();
             while (entries.hasMoreElements()) {
                 ZipEntry zipentry = entries.nextElement();
@@ -108,18 +149,116 @@ public class ZipUnpacker implements Unpacker {
                     if (zipentry.isDirectory() && Files.notExists(destination.resolve(zipentry.getName()))) {
                         Files.createDirectory(destination.resolve(zipentry.getName()));
                     } else if(!zipentry.isDirectory()) {
-                        Path current = destination.resolve(zipentry.getName());
-                        try(InputStream in = file.getInputStream(zipentry); OutputStream out = Files.newOutputStream(current)) {
-                            extractFile(in, out);
-                        }
+                        tasks.add(new ExtractTask(zipentry, destination.resolve(zipentry.getName())));
                     }
                 }
             }
+            try (var stored = StoredTransfer.open(source, tasks.stream().map(ExtractTask::entry).toList())) {
+                for (var task : tasks) {
+                    extractEntry(file, stored, task);
+                }
+            }
         } catch (IOException ioe) {
             throw new IllegalStateException("Error unpacking" + archive + ":" + destination, ioe);
         }
     }
 
+    /**
+     * Synchronize the destination with the archive, the check of the existing files is done by the extraction tasks,
+     * so it runs concurrently when the unpacker has an executor.
+     *
+     * @param archive     Archive file to extract the data from.
+     * @param destination Path where the archive content is extracted.
+     * @param deleteStale true to delete the files of the destination which are not in the archive.
+     */
+    @Override
+    public final void sync(Path archive, Path destination, boolean deleteStale) {
+        var source = resolve(archive);
+        try (ZipFile file = new ZipFile(source.toFile())) {
+            var sync = new DestinationSync(destination);
+            Files.createDirectories(destination);
+            var tasks = new ArrayList<ExtractTask>();
+            Enumeration<? extends ZipEntry> entries = file.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry zipentry = entries.nextElement();
+                var target = sync.target(zipentry.getName());
+                if (zipentry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    if (target.getParent() != null) {
+                        Files.createDirectories(target.getParent());
+                    }
+                    tasks.add(new ExtractTask(zipentry, target, sync));
+                }
+            }
+            try (var stored = StoredTransfer.open(source, tasks.stream().map(ExtractTask::entry).toList())) {
+                extractAll(file, stored, tasks);
+            }
+            if (deleteStale) {
+                sync.deleteStale();
+            }
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    /**
+     * Resolve the archive path, decoding the URL escaped characters, the zip file and the stored transfer are both
+     * opened from it so they always read the same file.
+     *
+     * @param archive Archive path, possibly URL encoded.
+     * @return The path of the archive file.
+     */
+    private static Path resolve(Path archive) {
+        return Path.of(URLDecoder.decode(archive.toAbsolutePath().toString(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Extract all the planned entries, directories must already exist.
+     *
+     * @param file   Opened zip file, it is safe to read its entries from several threads.
+     * @param stored Transfer for the stored entries, it is safe to use from several threads.
+     * @param tasks  Entries to extract with their target path.
+     * @throws IOException If Exception occurs during the extraction.
+     */
+    private void extractAll(ZipFile file, StoredTransfer stored, List<ExtractTask> tasks) throws IOException {
+        if (this.executor == null) {
+            for (var task : tasks) {
+                extractEntry(file, stored, task);
+            }
+            return;
+        }
+        var futures = tasks.stream()
+                .map(task -> CompletableFuture.runAsync(() -> {
+                    try {
+                        extractEntry(file, stored, task);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, this.executor))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void extractEntry(ZipFile file, StoredTransfer stored, ExtractTask task) throws IOException {
+        if (task.sync() != null && task.sync().isUpToDate(task.target(), task.entry().getSize(), task.entry().getCrc())) {
+            return;
+        }
+        if (stored.transfer(task.entry(), task.target())) {
+            return;
+        }
+        try(InputStream in = file.getInputStream(task.entry()); OutputStream out = Files.newOutputStream(task.target())) {
+            extractFile(in, out);
+        }
+    }
+
     /**
      * Logic to extract the file.
      *
@@ -134,4 +273,107 @@ public class ZipUnpacker implements Unpacker {
             out.write(buf, 0, l);
         }
     }
+
+    /**
+     * An entry to extract and the path where it will be written.
+     *
+     * @param sync Synchronization to skip the entry if the target is up to date, null to always extract it.
+     */
+    private record ExtractTask(ZipEntry entry, Path target, DestinationSync sync) {
+
+        private ExtractTask(ZipEntry entry, Path target) {
+            this(entry, target, null);
+        }
+    }
+
+    /**
+     * Copy the stored entries from the archive file to their destination file with {@link FileChannel#transferTo},
+     * the data do not go through a heap buffer and the OS can use copy_file_range or sendfile.
+     * As the data are not read, their CRC is not verified, unlike the stream extraction: a corrupted stored entry is
+     * extracted as is.
+     * The archive is only opened and its central directory parsed if there is at least one stored entry to extract, and
+     * it is only used when extracting several entries, so the parse is shared between them.
+     */
+    private static final class StoredTransfer implements Closeable {
+
+        private static final StoredTransfer NONE = new StoredTransfer(null, Map.of());
+
+        /**
+         * Archive file, only used with positional transfers, so it is safe to share between threads.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Stored entries from the central directory, by name.
+         */
+        private final Map<String, ZipCentralDirectory.Entry> entries;
+
+        private StoredTransfer(FileChannel channel, Map<String, ZipCentralDirectory.Entry> entries) {
+            super();
+            this.channel = channel;
+            this.entries = entries;
+        }
+
+        /**
+         * Prepare the transfer of the stored entries of an archive.
+         *
+         * @param archive Archive file.
+         * @param toExtract Entries that will be extracted.
+         * @return The transfer, to be closed once the extraction is done.
+         * @throws IOException If the archive cannot be read.
+         */
+        static StoredTransfer open(Path archive, List<? extends ZipEntry> toExtract) throws IOException {
+            if (toExtract.stream().noneMatch(e -> e.getMethod() == ZipEntry.STORED)) {
+                return NONE;
+            }
+            var channel = FileChannel.open(archive, StandardOpenOption.READ);
+            try {
+                var entries = new HashMap<String, ZipCentralDirectory.Entry>();
+                for (var entry : ZipCentralDirectory.read(channel)) {
+                    if (entry.method() == ZipEntry.STORED && !entry.isEncrypted() && entry.size() == entry.compressedSize()) {
+                        entries.putIfAbsent(entry.name(), entry);
+                    }
+                }
+                return new StoredTransfer(channel, entries);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Transfer an entry to its target file if it is stored.
+         *
+         * @param entry  Entry to extract.
+         * @param target File to write.
+         * @return true if the entry has been transferred, false if it must be extracted by reading it.
+         * @throws IOException If the transfer fails.
+         */
+        boolean transfer(ZipEntry entry, Path target) throws IOException {
+            var stored = this.entries.get(entry.getName());
+            if (stored == null) {
+                return false;
+            }
+            var position = ZipCentralDirectory.dataOffset(this.channel, stored);
+            var remaining = stored.size();
+            try (var out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (remaining > 0) {
+                    var count = this.channel.transferTo(position, remaining, out);
+                    if (count <= 0) {
+                        throw new EOFException("Unexpected end of archive for " + entry.getName());
+                    }
+                    position += count;
+                    remaining -= count;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.channel != null) {
+                this.channel.close();
+            }
+        }
+    }
 }
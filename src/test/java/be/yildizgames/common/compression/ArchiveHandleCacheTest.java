@@ -0,0 +1,130 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class ArchiveHandleCacheTest {
+
+    @Nested
+    class Acquire {
+
+        @Test
+        void missThenHit() {
+            try (var cache = new ArchiveHandleCache(4, Duration.ofMinutes(1))) {
+                try (var handle = cache.acquire(Helper.getZipMultipleFiles())) {
+                    Assertions.assertTrue(handle.contains("zip-folder-1/zip-file-1.txt"));
+                }
+                try (var handle = cache.acquire(Helper.getZipMultipleFiles())) {
+                    Assertions.assertTrue(handle.contains("zip-folder-1/zip-file-1.txt"));
+                }
+                Assertions.assertEquals(1, cache.getMisses());
+                Assertions.assertEquals(1, cache.getHits());
+                Assertions.assertEquals(1, cache.getSize());
+            }
+        }
+
+        @Test
+        void modifiedArchive() throws Exception {
+            var archive = copy(Helper.getZipMultipleFiles());
+            try (var cache = new ArchiveHandleCache(4, Duration.ofMinutes(1))) {
+                cache.acquire(archive).close();
+                Files.setLastModifiedTime(archive, FileTime.from(Instant.now().plusSeconds(60)));
+                cache.acquire(archive).close();
+                Assertions.assertEquals(2, cache.getMisses());
+                Assertions.assertEquals(1, cache.getSize());
+            }
+        }
+
+        @Test
+        void notExisting() {
+            try (var cache = new ArchiveHandleCache(4, Duration.ofMinutes(1))) {
+                var archive = Path.of("anything.zip");
+                Assertions.assertThrows(IllegalStateException.class, () -> cache.acquire(archive));
+            }
+        }
+
+        @Test
+        void invalidSize() {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new ArchiveHandleCache(0, Duration.ofMinutes(1)));
+        }
+    }
+
+    @Nested
+    class Eviction {
+
+        @Test
+        void leastRecentlyUsed() {
+            try (var cache = new ArchiveHandleCache(1, Duration.ofMinutes(1))) {
+                cache.acquire(Helper.getZipMultipleFiles()).close();
+                cache.acquire(Helper.getZipTestHashFile()).close();
+                cache.acquire(Helper.getZipMultipleFiles()).close();
+                Assertions.assertEquals(3, cache.getMisses());
+                Assertions.assertEquals(2, cache.getEvictions());
+                Assertions.assertEquals(1, cache.getSize());
+            }
+        }
+
+        @Test
+        void inUseStaysOpen() {
+            try (var cache = new ArchiveHandleCache(1, Duration.ofMinutes(1))) {
+                try (var handle = cache.acquire(Helper.getZipMultipleFiles())) {
+                    cache.acquire(Helper.getZipTestHashFile()).close();
+                    Assertions.assertEquals(1, cache.getEvictions());
+                    Assertions.assertTrue(handle.contains("zip-folder-1/zip-file-1.txt"));
+                    Assertions.assertFalse(handle.getFileInfo().isEmpty());
+                }
+            }
+        }
+
+        @Test
+        void idle() throws Exception {
+            try (var cache = new ArchiveHandleCache(4, Duration.ofMillis(1))) {
+                cache.acquire(Helper.getZipMultipleFiles()).close();
+                Thread.sleep(10);
+                cache.evictIdle();
+                Assertions.assertEquals(0, cache.getSize());
+                Assertions.assertEquals(1, cache.getEvictions());
+            }
+        }
+    }
+
+    @Test
+    void closedHandle() {
+        try (var cache = new ArchiveHandleCache(4, Duration.ofMinutes(1))) {
+            var handle = cache.acquire(Helper.getZipMultipleFiles());
+            handle.close();
+            Assertions.assertThrows(IllegalStateException.class, () -> handle.contains("zip-folder-1/zip-file-1.txt"));
+        }
+    }
+
+    private static Path copy(Path file) throws Exception {
+        var result = Files.createTempDirectory("cache").resolve(file.getFileName());
+        Files.copy(file, result);
+        return result;
+    }
+}
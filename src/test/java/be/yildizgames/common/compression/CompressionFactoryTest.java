@@ -17,7 +17,9 @@ package be.yildizgames.common.compression;
 
 import be.yildizgames.common.compression.sevenzip.SevenZipArchiver;
 import be.yildizgames.common.compression.sevenzip.SevenZipFileInfoRetriever;
+import be.yildizgames.common.compression.sevenzip.SevenZipNativeArchiver;
 import be.yildizgames.common.compression.sevenzip.SevenZipUnpacker;
+import be.yildizgames.common.compression.zip.ZipArchiveHandle;
 import be.yildizgames.common.compression.zip.ZipArchiver;
 import be.yildizgames.common.compression.zip.ZipFileInfoRetriever;
 import be.yildizgames.common.compression.zip.ZipUnpacker;
@@ -93,6 +95,20 @@ class CompressionFactoryTest {
 
     }
 
+    @Nested
+    class SevenZipNativeArchiverGet {
+
+        @Test
+        void correctClass() {
+            assertTrue(CompressionFactory.sevenZipNativeArchiver(8, 16 * 1024 * 1024) instanceof SevenZipNativeArchiver);
+        }
+
+        @Test
+        void negativeThreads() {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> CompressionFactory.sevenZipNativeArchiver(-1, 0));
+        }
+    }
+
     @Nested
     class ZipFileInfoGet {
 
@@ -134,4 +150,22 @@ class CompressionFactoryTest {
 
     }
 
+    @Nested
+    class Open {
+
+        @Test
+        void correctClassZip() {
+            try (var handle = CompressionFactory.open(Helper.getZipTestHashFile())) {
+                Assertions.assertTrue(handle instanceof ZipArchiveHandle);
+            }
+        }
+
+        @Test
+        void wrongExtension() {
+            var file = Helper.getPlainTestHashFile();
+            Assertions.assertThrows(IllegalArgumentException.class, () -> CompressionFactory.open(file));
+        }
+
+    }
+
 }
@@ -0,0 +1,81 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class CompressionOptionsTest {
+
+    @Nested
+    class Defaults {
+
+        @Test
+        void happyFlow() {
+            var options = CompressionOptions.defaults();
+            Assertions.assertEquals(CompressionOptions.Method.DEFAULT, options.method());
+            Assertions.assertFalse(options.hasLevel());
+            Assertions.assertTrue(options.solid());
+            Assertions.assertEquals(0, options.threads());
+            Assertions.assertEquals(CompressionOptions.IncompressibleDetection.FILE_TYPE, options.incompressible());
+        }
+    }
+
+    @Nested
+    class With {
+
+        @Test
+        void happyFlow() {
+            var options = CompressionOptions.defaults()
+                    .withMethod(CompressionOptions.Method.LZMA2)
+                    .withLevel(9)
+                    .withDictionarySize(1 << 20)
+                    .withSolid(false)
+                    .withSolidBlockSize(1024)
+                    .withSolidFiles(100)
+                    .withThreads(4)
+                    .withIncompressibleDetection(CompressionOptions.IncompressibleDetection.NONE);
+            Assertions.assertEquals(new CompressionOptions(CompressionOptions.Method.LZMA2, 9, 1 << 20, false, 1024, 100, 4,
+                    CompressionOptions.IncompressibleDetection.NONE), options);
+        }
+
+        @Test
+        void invalidLevel() {
+            var options = CompressionOptions.defaults();
+            Assertions.assertThrows(IllegalArgumentException.class, () -> options.withLevel(10));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> options.withLevel(-2));
+        }
+
+        @Test
+        void negativeValues() {
+            var options = CompressionOptions.defaults();
+            Assertions.assertThrows(IllegalArgumentException.class, () -> options.withDictionarySize(-1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> options.withSolidBlockSize(-1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> options.withSolidFiles(-1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> options.withThreads(-1));
+        }
+
+        @Test
+        void nullMethod() {
+            var options = CompressionOptions.defaults();
+            Assertions.assertThrows(NullPointerException.class, () -> options.withMethod(null));
+        }
+    }
+}
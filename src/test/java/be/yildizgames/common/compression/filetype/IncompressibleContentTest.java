@@ -0,0 +1,99 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.filetype;
+
+import be.yildizgames.common.compression.Helper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class IncompressibleContentTest {
+
+    @Nested
+    class Is {
+
+        @Test
+        void jpg() throws Exception {
+            var sample = sample(Files.readAllBytes(Helper.getPlainBigFile()));
+            Assertions.assertTrue(IncompressibleContent.is(sample, sample.length, false));
+        }
+
+        @Test
+        void zip() throws Exception {
+            var sample = sample(Files.readAllBytes(Helper.getZipTestHashFile()));
+            Assertions.assertTrue(IncompressibleContent.is(sample, sample.length, false));
+        }
+
+        @Test
+        void text() throws Exception {
+            var sample = sample(Files.readAllBytes(Helper.getPlainTestHashFile()));
+            Assertions.assertFalse(IncompressibleContent.is(sample, sample.length, true));
+        }
+
+        @Test
+        void randomWithEntropy() {
+            var sample = new byte[IncompressibleContent.SAMPLE_SIZE];
+            new Random(42).nextBytes(sample);
+            Assertions.assertTrue(IncompressibleContent.is(sample, sample.length, true));
+        }
+
+        @Test
+        void randomWithoutEntropy() {
+            var sample = new byte[IncompressibleContent.SAMPLE_SIZE];
+            new Random(42).nextBytes(sample);
+            sample[0] = 0;
+            Assertions.assertFalse(IncompressibleContent.is(sample, sample.length, false));
+        }
+
+        @Test
+        void shortSample() {
+            var sample = new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+            Assertions.assertTrue(IncompressibleContent.is(sample, sample.length, true));
+            Assertions.assertFalse(IncompressibleContent.is(sample, 2, true));
+        }
+    }
+
+    @Nested
+    class Entropy {
+
+        @Test
+        void constant() {
+            Assertions.assertEquals(0, IncompressibleContent.entropy(new byte[100], 100), 0.0001);
+        }
+
+        @Test
+        void allValues() {
+            var sample = new byte[256];
+            for (int i = 0; i < sample.length; i++) {
+                sample[i] = (byte) i;
+            }
+            Assertions.assertEquals(8, IncompressibleContent.entropy(sample, sample.length), 0.0001);
+        }
+    }
+
+    private static byte[] sample(byte[] content) {
+        var length = Math.min(content.length, IncompressibleContent.SAMPLE_SIZE);
+        var sample = new byte[length];
+        System.arraycopy(content, 0, sample, 0, length);
+        return sample;
+    }
+}
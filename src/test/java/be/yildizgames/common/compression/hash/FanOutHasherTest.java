@@ -0,0 +1,106 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.hash;
+
+import be.yildizgames.common.compression.Helper;
+import be.yildizgames.common.hashing.Algorithm;
+import be.yildizgames.common.hashing.HashingFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class FanOutHasherTest {
+
+    @Test
+    void severalAlgorithms() throws Exception {
+        var file = Helper.getPlainBigFile();
+        var expected = List.of(
+                HashingFactory.get(Algorithm.CRC32).compute(file),
+                HashingFactory.get(Algorithm.MD5).compute(file),
+                HashingFactory.get(Algorithm.SHA1).compute(file));
+        try (var hasher = new FanOutHasher(Algorithm.CRC32, Algorithm.MD5, Algorithm.SHA1);
+             var in = Files.newInputStream(file)) {
+            Assertions.assertEquals(expected, hasher.compute(in));
+        }
+    }
+
+    @Test
+    void largeSource() throws Exception {
+        var data = new byte[1024 * 1024 + 17];
+        new Random(42).nextBytes(data);
+        var expected = List.of(
+                HashingFactory.get(Algorithm.CRC32).compute(new ByteArrayInputStream(data)),
+                HashingFactory.get(Algorithm.SHA1).compute(new ByteArrayInputStream(data)));
+        try (var hasher = new FanOutHasher(Algorithm.CRC32, Algorithm.SHA1)) {
+            Assertions.assertEquals(expected, hasher.compute(new ByteArrayInputStream(data)));
+        }
+    }
+
+    @Test
+    void largeSourceFailing() {
+        var data = new byte[1024 * 1024];
+        var in = new InputStream() {
+
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (this.position == data.length) {
+                    throw new IOException("failure");
+                }
+                return data[this.position++];
+            }
+        };
+        try (var hasher = new FanOutHasher(Algorithm.CRC32, Algorithm.SHA1)) {
+            Assertions.assertThrows(IOException.class, () -> hasher.compute(in));
+        }
+    }
+
+    @Test
+    void singleAlgorithm() throws Exception {
+        var file = Helper.getPlainTestHashFile();
+        try (var hasher = new FanOutHasher(Algorithm.MD5);
+             var in = Files.newInputStream(file)) {
+            Assertions.assertEquals(List.of(HashingFactory.get(Algorithm.MD5).compute(file)), hasher.compute(in));
+        }
+    }
+
+    @Test
+    void reused() throws Exception {
+        try (var hasher = new FanOutHasher(Algorithm.CRC32, Algorithm.MD5)) {
+            var first = hasher.compute(new ByteArrayInputStream(new byte[0]));
+            var second = hasher.compute(new ByteArrayInputStream(new byte[0]));
+            Assertions.assertEquals(first, second);
+            Assertions.assertEquals(List.of(
+                    HashingFactory.get(Algorithm.CRC32).compute(new ByteArrayInputStream(new byte[0])),
+                    HashingFactory.get(Algorithm.MD5).compute(new ByteArrayInputStream(new byte[0]))), first);
+        }
+    }
+
+    @Test
+    void noAlgorithm() {
+        Assertions.assertThrows(IllegalArgumentException.class, FanOutHasher::new);
+    }
+}
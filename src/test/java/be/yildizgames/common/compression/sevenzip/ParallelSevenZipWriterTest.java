@@ -0,0 +1,85 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sevenzip;
+
+import be.yildizgames.common.compression.CompressionOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.tukaani.xz.LZMA2Options;
+
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class ParallelSevenZipWriterTest {
+
+    @Nested
+    class BlockSize {
+
+        @Test
+        void storedBlockLimited() {
+            var writer = new ParallelSevenZipWriter(new LZMA2Options(), ParallelSevenZipWriter.MAX_BLOCK_SIZE, CompressionOptions.IncompressibleDetection.NONE, null, 8);
+            Assertions.assertEquals(ParallelSevenZipWriter.MAX_BLOCK_SIZE, writer.blockSize(false));
+            Assertions.assertEquals(ParallelSevenZipWriter.STORE_BLOCK_SIZE, writer.blockSize(true));
+        }
+
+        @Test
+        void smallStoredBlock() {
+            var writer = new ParallelSevenZipWriter(null, 1024, CompressionOptions.IncompressibleDetection.NONE, null, 8);
+            Assertions.assertEquals(1024, writer.blockSize(true));
+        }
+    }
+
+    @Nested
+    class Combine {
+
+        @Test
+        void sameAsConcatenated() {
+            var data = new byte[300_000];
+            new Random(7).nextBytes(data);
+            for (int split : new int[]{1, 2, 3, 63, 64, 65, 1000, 65_536, 150_000, 299_999}) {
+                Assertions.assertEquals(crc(data, 0, data.length), ParallelSevenZipWriter.combine(crc(data, 0, split), crc(data, split, data.length - split), data.length - split), "split " + split);
+            }
+        }
+
+        @Test
+        void severalParts() {
+            var data = new byte[100_000];
+            new Random(11).nextBytes(data);
+            long combined = crc(data, 0, 10_000);
+            for (int offset = 10_000; offset < data.length; offset += 30_000) {
+                int length = Math.min(30_000, data.length - offset);
+                combined = ParallelSevenZipWriter.combine(combined, crc(data, offset, length), length);
+            }
+            Assertions.assertEquals(crc(data, 0, data.length), combined);
+        }
+
+        @Test
+        void emptySecondPart() {
+            var data = new byte[]{1, 2, 3};
+            Assertions.assertEquals(crc(data, 0, 3), ParallelSevenZipWriter.combine(crc(data, 0, 3), crc(data, 3, 0), 0));
+        }
+
+        private long crc(byte[] data, int offset, int length) {
+            var crc = new CRC32();
+            crc.update(data, offset, length);
+            return crc.getValue();
+        }
+    }
+}
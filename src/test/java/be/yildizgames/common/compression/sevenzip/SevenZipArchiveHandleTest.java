@@ -0,0 +1,141 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sevenzip;
+
+import be.yildizgames.common.compression.CompressionFactory;
+import be.yildizgames.common.compression.Helper;
+import be.yildizgames.common.hashing.Algorithm;
+import be.yildizgames.common.hashing.HashingFactory;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethod;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class SevenZipArchiveHandleTest {
+
+    @Test
+    void correctClass() {
+        try (var handle = CompressionFactory.open(Helper.get7zMultipleFiles())) {
+            Assertions.assertTrue(handle instanceof SevenZipArchiveHandle);
+        }
+    }
+
+    @Nested
+    class Unpack {
+
+        @Test
+        void singleFile() throws Exception {
+            var destination = Files.createTempDirectory("sevenzip");
+            try (var handle = CompressionFactory.open(Helper.get7zMultipleFiles())) {
+                handle.unpack("7zip-folder-1/7zip-folder-2/7zip-file-2.txt", destination);
+                handle.unpack("7zip-folder-1/7zip-file-1.txt", destination);
+            }
+            Assertions.assertTrue(Files.exists(destination.resolve("7zip-folder-1").resolve("7zip-file-1.txt")));
+            Assertions.assertTrue(Files.exists(destination.resolve("7zip-folder-1").resolve("7zip-folder-2").resolve("7zip-file-2.txt")));
+        }
+
+        @Test
+        void all() throws Exception {
+            var destination = Files.createTempDirectory("sevenzip");
+            try (var handle = CompressionFactory.open(Helper.get7zBigFile())) {
+                handle.unpack(destination);
+            }
+            var expected = Helper.getPlainBigFile();
+            Assertions.assertEquals(-1L, Files.mismatch(expected, destination.resolve(expected.getFileName())));
+        }
+
+        @Test
+        void notExisting() throws Exception {
+            var destination = Files.createTempDirectory("sevenzip");
+            try (var handle = CompressionFactory.open(Helper.get7zMultipleFiles())) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> handle.unpack("anything.txt", destination));
+            }
+        }
+    }
+
+    @Nested
+    class GetFileInfo {
+
+        @Test
+        void happyFlow() {
+            var crc = HashingFactory.get(Algorithm.CRC32).compute(Helper.getPlainBigFile());
+            var sha1 = HashingFactory.get(Algorithm.SHA1).compute(Helper.getPlainBigFile());
+            try (var handle = CompressionFactory.open(Helper.get7zBigFile())) {
+                var first = handle.getFileInfo(Algorithm.CRC32, Algorithm.SHA1);
+                var second = handle.getFileInfo(Algorithm.CRC32, Algorithm.SHA1);
+                Assertions.assertEquals(crc, first.get(0).hashes().get(0));
+                Assertions.assertEquals(sha1, first.get(0).hashes().get(1));
+                Assertions.assertEquals(first, second);
+            }
+        }
+    }
+
+    @Nested
+    class DuplicatedName {
+
+        @Test
+        void entries() throws Exception {
+            try (var handle = new SevenZipArchiveHandle(duplicated())) {
+                Assertions.assertEquals(List.of("same.txt", "same.txt"), handle.entries());
+                Assertions.assertTrue(handle.contains("same.txt"));
+            }
+        }
+
+        @Test
+        void unpack() throws Exception {
+            var all = Files.createTempDirectory("sevenzip");
+            var single = Files.createTempDirectory("sevenzip");
+            try (var handle = new SevenZipArchiveHandle(duplicated())) {
+                handle.unpack(all);
+                handle.unpack("same.txt", single);
+            }
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainTestHash2File(), all.resolve("same.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainTestHash2File(), single.resolve("same.txt")));
+        }
+
+        @Test
+        void getFileInfo() throws Exception {
+            try (var handle = new SevenZipArchiveHandle(duplicated())) {
+                var result = handle.getFileInfo(Algorithm.CRC32);
+                Assertions.assertEquals(2, result.size());
+                Assertions.assertEquals(HashingFactory.get(Algorithm.CRC32).compute(Helper.getPlainTestHashFile()), result.get(0).hashes().get(0));
+                Assertions.assertEquals(HashingFactory.get(Algorithm.CRC32).compute(Helper.getPlainTestHash2File()), result.get(1).hashes().get(0));
+            }
+        }
+
+        private Path duplicated() throws Exception {
+            var archive = Files.createTempFile("test-SevenZipArchiveHandleTest-duplicated", ".7z");
+            try (var out = new SevenZOutputFile(archive.toFile())) {
+                out.setContentCompression(SevenZMethod.COPY);
+                for (var file : List.of(Helper.getPlainTestHashFile(), Helper.getPlainTestHash2File())) {
+                    var entry = out.createArchiveEntry(file, "same.txt");
+                    out.putArchiveEntry(entry);
+                    out.write(Files.readAllBytes(file));
+                    out.closeArchiveEntry();
+                }
+            }
+            return archive;
+        }
+    }
+}
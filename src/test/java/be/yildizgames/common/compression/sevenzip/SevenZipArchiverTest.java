@@ -15,11 +15,16 @@
 
 package be.yildizgames.common.compression.sevenzip;
 
+import be.yildizgames.common.compression.CompressionOptions;
 import be.yildizgames.common.compression.Helper;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.sevenz.SevenZMethod;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.file.Files;
 import java.util.List;
 
@@ -68,4 +73,144 @@ class SevenZipArchiverTest {
 
         }
     }
+
+    @Nested
+    class PackWithOptions {
+
+        @Test
+        void store() throws Exception {
+            var result = Files.createTempFile("test-SevenZipArchiverTest-store", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE)).pack(Helper.getPlainBigFile(), result);
+            Assertions.assertTrue(Files.size(result) > Files.size(Helper.getPlainBigFile()));
+            var destination = Files.createTempDirectory("test-SevenZipArchiverTest-store-unpack");
+            new SevenZipUnpacker().unpack(result, destination, false);
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(Helper.getPlainBigFile().getFileName())));
+        }
+
+        @Test
+        void lzma2WithDictionary() throws Exception {
+            var result = Files.createTempFile("test-SevenZipArchiverTest-lzma2", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withLevel(1).withDictionarySize(1 << 20)).pack(Helper.getPlainBigFile(), result);
+            var destination = Files.createTempDirectory("test-SevenZipArchiverTest-lzma2-unpack");
+            new SevenZipUnpacker().unpack(result, destination, false);
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(Helper.getPlainBigFile().getFileName())));
+        }
+
+        @Test
+        void nonEncodableDictionaryRoundedUp() throws Exception {
+            var options = CompressionOptions.defaults()
+                    .withDictionarySize(5000)
+                    .withIncompressibleDetection(CompressionOptions.IncompressibleDetection.NONE);
+            for (var threads : new int[]{1, 2}) {
+                var result = Files.createTempFile("test-SevenZipArchiverTest-dictionary", ".7z");
+                new SevenZipArchiver(options.withThreads(threads)).pack(Helper.getPlainBigFile(), result);
+                try (var file = SevenZFile.builder().setPath(result).get()) {
+                    var entry = file.getNextEntry();
+                    Assertions.assertEquals(6144, ((Number) entry.getContentMethods().iterator().next().getOptions()).intValue());
+                }
+                var destination = Files.createTempDirectory("test-SevenZipArchiverTest-dictionary-unpack");
+                new SevenZipUnpacker().unpack(result, destination, false);
+                Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(Helper.getPlainBigFile().getFileName())));
+            }
+        }
+
+        @Test
+        void encodableDictionarySize() {
+            Assertions.assertEquals(8 << 20, SevenZipArchiver.encodableDictionarySize(8 << 20));
+            Assertions.assertEquals(12 << 20, SevenZipArchiver.encodableDictionarySize(10_000_000));
+            Assertions.assertEquals(16 << 20, SevenZipArchiver.encodableDictionarySize((12 << 20) + 1));
+            Assertions.assertEquals(22, ParallelSevenZipWriter.dictionaryProperty(8 << 20));
+            Assertions.assertEquals(23, ParallelSevenZipWriter.dictionaryProperty(10_000_000));
+        }
+
+        @Test
+        void incompressibleStored() throws Exception {
+            var result = Files.createTempFile("test-SevenZipArchiverTest-incompressible", ".7z");
+            new SevenZipArchiver().pack(List.of(Helper.getPlainBigFile(), Helper.getPlainTestHashFile()), result);
+            try (var file = SevenZFile.builder().setPath(result).get()) {
+                for (var entry = file.getNextEntry(); entry != null; entry = file.getNextEntry()) {
+                    var method = entry.getContentMethods().iterator().next().getMethod();
+                    if (entry.getName().equals(Helper.getPlainBigFile().getFileName().toString())) {
+                        Assertions.assertEquals(SevenZMethod.COPY, method);
+                    } else {
+                        Assertions.assertEquals(SevenZMethod.LZMA2, method);
+                    }
+                }
+            }
+        }
+
+        @Test
+        void invalidDictionary() {
+            var options = CompressionOptions.defaults().withDictionarySize(1);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new SevenZipArchiver(options));
+        }
+    }
+
+    @Nested
+    class PackParallel {
+
+        @Test
+        void singleFileSeveralBlocks() throws Exception {
+            var result = Files.createTempFile("test-SevenZipArchiverTest-parallel-blocks", ".7z");
+            var options = CompressionOptions.defaults()
+                    .withThreads(4)
+                    .withSolidBlockSize(16 * 1024)
+                    .withIncompressibleDetection(CompressionOptions.IncompressibleDetection.NONE);
+            new SevenZipArchiver(options).pack(Helper.getPlainBigFile(), result);
+            var destination = Files.createTempDirectory("test-SevenZipArchiverTest-parallel-blocks-unpack");
+            new SevenZipUnpacker().unpack(result, destination, false);
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(Helper.getPlainBigFile().getFileName())));
+        }
+
+        @Test
+        void blockSizeTooBig() {
+            var options = CompressionOptions.defaults().withThreads(2).withSolidBlockSize(2L << 30);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new SevenZipArchiver(options));
+        }
+
+        @Test
+        void directory() throws Exception {
+            var root = Files.createTempDirectory("test-SevenZipArchiverTest-parallel").resolve("dir");
+            Files.createDirectories(root.resolve("sub"));
+            Files.copy(Helper.getPlainTestHashFile(), root.resolve("sub").resolve("test-hash.txt"));
+            Files.copy(Helper.getPlainBigFile(), root.resolve(Helper.getPlainBigFile().getFileName()));
+            Files.createFile(root.resolve("empty.txt"));
+            var result = Files.createTempFile("test-SevenZipArchiverTest-parallel-directory", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withThreads(4)).pack(List.of(root, Helper.getPlainTestHash2File()), result);
+            var destination = Files.createTempDirectory("test-SevenZipArchiverTest-parallel-directory-unpack");
+            new SevenZipUnpacker().unpack(result, destination, true);
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainTestHashFile(), destination.resolve("dir/sub/test-hash.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve("dir").resolve(Helper.getPlainBigFile().getFileName())));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainTestHash2File(), destination.resolve("test-hash2.txt")));
+            Assertions.assertEquals(0L, Files.size(destination.resolve("dir/empty.txt")));
+        }
+
+        @Test
+        void store() throws Exception {
+            var result = Files.createTempFile("test-SevenZipArchiverTest-parallel-store", ".7z");
+            var options = CompressionOptions.defaults().withThreads(2).withMethod(CompressionOptions.Method.STORE);
+            new SevenZipArchiver(options).pack(List.of(Helper.getPlainTestHashFile(), Helper.getPlainBigFile()), result);
+            try (var file = SevenZFile.builder().setPath(result).get()) {
+                for (var entry = file.getNextEntry(); entry != null; entry = file.getNextEntry()) {
+                    Assertions.assertEquals(SevenZMethod.COPY, entry.getContentMethods().iterator().next().getMethod());
+                }
+            }
+            var destination = Files.createTempDirectory("test-SevenZipArchiverTest-parallel-store-unpack");
+            new SevenZipUnpacker().unpack(result, destination, false);
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(Helper.getPlainBigFile().getFileName())));
+        }
+    }
+
+    @Nested
+    class PackToStream {
+
+        @Test
+        void temporaryFileCopied() throws Exception {
+            var out = new ByteArrayOutputStream();
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE)).pack(List.of(Helper.getPlainBigFile()), out);
+            var destination = Files.createTempDirectory("test-SevenZipArchiverTest-stream-unpack");
+            new SevenZipStreamUnpacker().unpack(new ByteArrayInputStream(out.toByteArray()), destination);
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(Helper.getPlainBigFile().getFileName())));
+        }
+    }
 }
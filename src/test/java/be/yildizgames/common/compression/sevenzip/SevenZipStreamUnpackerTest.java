@@ -0,0 +1,78 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.sevenzip;
+
+import be.yildizgames.common.compression.CompressionFactory;
+import be.yildizgames.common.compression.CompressionOptions;
+import be.yildizgames.common.compression.Helper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class SevenZipStreamUnpackerTest {
+
+    @Nested
+    class Unpack {
+
+        @Test
+        void inMemory() throws IOException {
+            var archive = archive();
+            var destination = Files.createTempDirectory("test-SevenZipStreamUnpackerTest-memory");
+            try (var in = Files.newInputStream(archive)) {
+                CompressionFactory.sevenZipStreamUnpacker().unpack(in, destination);
+            }
+            check(destination);
+        }
+
+        @Test
+        void spooled() throws IOException {
+            var archive = archive();
+            var destination = Files.createTempDirectory("test-SevenZipStreamUnpackerTest-spool");
+            try (var in = Files.newInputStream(archive)) {
+                CompressionFactory.sevenZipStreamUnpacker(1024).unpack(in, destination);
+            }
+            check(destination);
+        }
+
+        @Test
+        void negativeThreshold() {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new SevenZipStreamUnpacker(-1));
+        }
+
+        private Path archive() throws IOException {
+            var root = Files.createTempDirectory("test-SevenZipStreamUnpackerTest").resolve("dir");
+            Files.createDirectories(root.resolve("sub"));
+            Files.copy(Helper.getPlainTestHashFile(), root.resolve("sub").resolve("test-hash.txt"));
+            Files.copy(Helper.getPlainBigFile(), root.resolve(Helper.getPlainBigFile().getFileName()));
+            var result = Files.createTempFile("test-SevenZipStreamUnpackerTest", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE)).pack(List.of(root), result);
+            return result;
+        }
+
+        private void check(Path destination) throws IOException {
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainTestHashFile(), destination.resolve("dir/sub/test-hash.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve("dir").resolve(Helper.getPlainBigFile().getFileName())));
+        }
+    }
+}
@@ -16,14 +16,19 @@
 package be.yildizgames.common.compression.sevenzip;
 
 import be.yildizgames.common.compression.CompressionFactory;
+import be.yildizgames.common.compression.CompressionOptions;
 import be.yildizgames.common.compression.Helper;
 import be.yildizgames.common.compression.Unpacker;
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Grégory Van den Borre
@@ -51,6 +56,178 @@ class SevenZipUnpackerTest {
             Assertions.assertTrue(Files.exists(zip.resolve("7zip-file-1.txt")));
             Assertions.assertTrue(Files.exists(zip.resolve("7zip-file-2.txt")));
         }
+
+        @Test
+        void bigFileContent() throws Exception {
+            Unpacker unpacker = CompressionFactory.sevenZipUnpacker(false);
+            Path zip = getDestinationPath();
+            unpacker.unpack(Helper.get7zBigFile(), zip, true);
+            var expected = Helper.getPlainBigFile();
+            Assertions.assertEquals(-1L, Files.mismatch(expected, zip.resolve(expected.getFileName())));
+        }
+    }
+
+    @Nested
+    class ExtractFilesParallel {
+
+        @Test
+        void happyFlow() throws Exception {
+            Unpacker unpacker = CompressionFactory.sevenZipUnpacker(ForkJoinPool.commonPool(), 4);
+            Path zip = getDestinationPath();
+            unpacker.unpack(Helper.get7zMultipleFiles(), zip, true);
+            Assertions.assertTrue(Files.exists(zip.resolve("7zip-folder-1").resolve("7zip-file-1.txt")));
+            Assertions.assertTrue(Files.exists(zip.resolve("7zip-folder-1").resolve("7zip-folder-2").resolve("7zip-file-2.txt")));
+        }
+
+        @Test
+        void discardSubDirectories() throws Exception {
+            Unpacker unpacker = CompressionFactory.sevenZipUnpacker(ForkJoinPool.commonPool(), 4);
+            Path zip = getDestinationPath();
+            unpacker.unpack(Helper.get7zMultipleFiles(), zip, false, true);
+            Assertions.assertTrue(Files.exists(zip.resolve("7zip-file-1.txt")));
+            Assertions.assertTrue(Files.exists(zip.resolve("7zip-file-2.txt")));
+        }
+
+        @Test
+        void multipleFolders() throws Exception {
+            var root = getDestinationPath().resolve("dir");
+            Files.createDirectories(root.resolve("sub"));
+            for (int i = 0; i < 10; i++) {
+                Files.copy(Helper.getPlainTestHashFile(), root.resolve("sub").resolve("file-" + i + ".txt"));
+            }
+            Files.copy(Helper.getPlainBigFile(), root.resolve(Helper.getPlainBigFile().getFileName()));
+            var archive = Files.createTempFile("sevenzip", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE).withThreads(2)).pack(root, archive);
+            Path destination = getDestinationPath();
+            CompressionFactory.sevenZipUnpacker(ForkJoinPool.commonPool(), 3).unpack(archive, destination, true);
+            for (int i = 0; i < 10; i++) {
+                Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainTestHashFile(), destination.resolve("dir/sub/file-" + i + ".txt")));
+            }
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve("dir").resolve(Helper.getPlainBigFile().getFileName())));
+        }
+
+        @Test
+        void singleFolder() throws Exception {
+            var archive = Files.createTempFile("sevenzip", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE).withThreads(2)).pack(Helper.getPlainBigFile(), archive);
+            Path destination = getDestinationPath();
+            CompressionFactory.sevenZipUnpacker(ForkJoinPool.commonPool(), 3).unpack(archive, destination, true);
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(Helper.getPlainBigFile().getFileName())));
+        }
+
+        @Test
+        void discardSubDirectoriesSameName() throws Exception {
+            var root = getDestinationPath().resolve("dir");
+            for (int i = 0; i < 6; i++) {
+                Files.createDirectories(root.resolve("sub-" + i));
+                Files.copy(i % 2 == 0 ? Helper.getPlainTestHashFile() : Helper.getPlainTestHash2File(), root.resolve("sub-" + i).resolve("same.txt"));
+            }
+            Files.copy(Helper.getPlainBigFile(), root.resolve(Helper.getPlainBigFile().getFileName()));
+            var archive = Files.createTempFile("sevenzip", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE).withThreads(2)).pack(root, archive);
+            Path sequential = getDestinationPath();
+            new SevenZipUnpacker().unpack(archive, sequential, true, true);
+            Path parallel = getDestinationPath();
+            CompressionFactory.sevenZipUnpacker(ForkJoinPool.commonPool(), 4).unpack(archive, parallel, true, true);
+            Assertions.assertEquals(-1L, Files.mismatch(sequential.resolve("same.txt"), parallel.resolve("same.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), parallel.resolve(Helper.getPlainBigFile().getFileName())));
+        }
+
+        @Test
+        void foldersDetected() throws Exception {
+            var root = getDestinationPath().resolve("dir");
+            Files.createDirectories(root.resolve("sub"));
+            for (int i = 0; i < 10; i++) {
+                Files.copy(Helper.getPlainTestHashFile(), root.resolve("sub").resolve("file-" + i + ".txt"));
+            }
+            Files.createFile(root.resolve("empty.txt"));
+            var archive = Files.createTempFile("sevenzip", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE).withThreads(2)).pack(root, archive);
+            var entries = new ArrayList<SevenZArchiveEntry>();
+            var folders = SevenZipUnpacker.folders(archive, entries);
+            Assertions.assertEquals(entries.size(), folders.length);
+            var expected = 0;
+            for (int i = 0; i < folders.length; i++) {
+                if (entries.get(i).hasStream()) {
+                    // Every file is in its own folder, the detection must follow them.
+                    Assertions.assertEquals(expected++, folders[i], entries.get(i).getName());
+                } else {
+                    Assertions.assertEquals(-1, folders[i], entries.get(i).getName());
+                }
+            }
+            Assertions.assertEquals(10, expected);
+        }
+
+        @Test
+        void invalidWorkerNumber() {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new SevenZipUnpacker(ForkJoinPool.commonPool(), 0));
+        }
+    }
+
+    @Nested
+    class UnpackDirectoryToDirectory {
+
+        @Test
+        void happyFlow() throws Exception {
+            Unpacker unpacker = CompressionFactory.sevenZipUnpacker(false);
+            Path zip = getDestinationPath();
+            unpacker.unpackDirectoryToDirectory(Helper.get7zMultipleFiles(), "7zip-folder-1", zip);
+            Assertions.assertTrue(Files.exists(zip.resolve("7zip-folder-1").resolve("7zip-file-1.txt")));
+        }
+
+        @Test
+        void onlyDirectoryContent() throws Exception {
+            var root = getDestinationPath().resolve("dir");
+            Files.createDirectories(root.resolve("sub"));
+            Files.createDirectories(root.resolve("other"));
+            Files.copy(Helper.getPlainTestHashFile(), root.resolve("sub").resolve("test-hash.txt"));
+            Files.copy(Helper.getPlainBigFile(), root.resolve("other").resolve(Helper.getPlainBigFile().getFileName()));
+            var archive = Files.createTempFile("sevenzip", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE).withThreads(2)).pack(root, archive);
+            Path destination = getDestinationPath();
+            CompressionFactory.sevenZipUnpacker(false).unpackDirectoryToDirectory(archive, "dir/sub", destination);
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainTestHashFile(), destination.resolve("dir/sub/test-hash.txt")));
+            Assertions.assertFalse(Files.exists(destination.resolve("dir/other")));
+        }
+
+        @Test
+        void directoryNotExistInArchive() throws Exception {
+            Unpacker unpacker = CompressionFactory.sevenZipUnpacker(false);
+            Path zip = getDestinationPath();
+            unpacker.unpackDirectoryToDirectory(Helper.get7zMultipleFiles(), "7zip-folder-17", zip);
+            try (var files = Files.list(zip)) {
+                Assertions.assertEquals(0L, files.count());
+            }
+        }
+    }
+
+    @Nested
+    class Sync {
+
+        @Test
+        void onlyChangedFilesWritten() throws Exception {
+            var root = getDestinationPath().resolve("dir");
+            Files.createDirectories(root.resolve("sub"));
+            Files.copy(Helper.getPlainTestHashFile(), root.resolve("sub").resolve("test-hash.txt"));
+            Files.copy(Helper.getPlainBigFile(), root.resolve(Helper.getPlainBigFile().getFileName()));
+            Files.createFile(root.resolve("empty.txt"));
+            var archive = Files.createTempFile("sevenzip", ".7z");
+            new SevenZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE)).pack(root, archive);
+            Path destination = getDestinationPath();
+            var unpacker = CompressionFactory.sevenZipUnpacker(false);
+            unpacker.sync(archive, destination, true);
+            var past = FileTime.fromMillis(1_000_000L);
+            var big = destination.resolve("dir").resolve(Helper.getPlainBigFile().getFileName());
+            Files.setLastModifiedTime(big, past);
+            Files.setLastModifiedTime(destination.resolve("dir/empty.txt"), past);
+            Files.write(destination.resolve("dir/sub/test-hash.txt"), new byte[(int) Files.size(Helper.getPlainTestHashFile())]);
+            Files.writeString(destination.resolve("dir/stale.txt"), "stale");
+            unpacker.sync(archive, destination, true);
+            Assertions.assertEquals(past, Files.getLastModifiedTime(big));
+            Assertions.assertEquals(past, Files.getLastModifiedTime(destination.resolve("dir/empty.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainTestHashFile(), destination.resolve("dir/sub/test-hash.txt")));
+            Assertions.assertFalse(Files.exists(destination.resolve("dir/stale.txt")));
+        }
     }
 
     private static Path getDestinationPath() throws Exception {
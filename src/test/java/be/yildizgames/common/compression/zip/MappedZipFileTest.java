@@ -0,0 +1,155 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.zip;
+
+import be.yildizgames.common.compression.CompressionFactory;
+import be.yildizgames.common.compression.Helper;
+import be.yildizgames.common.hashing.Algorithm;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class MappedZipFileTest {
+
+    @Nested
+    class Entries {
+
+        @Test
+        void sameAsZipFile() {
+            try (var mapped = CompressionFactory.openMappedZip(Helper.getZipMultipleFiles());
+                 var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertEquals(handle.entries(), mapped.entries());
+                Assertions.assertTrue(mapped.contains("zip-folder-1/zip-file-1.txt"));
+                Assertions.assertFalse(mapped.contains("zip-folder-1/anything.txt"));
+            }
+        }
+    }
+
+    @Nested
+    class Unpack {
+
+        @Test
+        void deflated() throws Exception {
+            var destination = Files.createTempDirectory("zip");
+            try (var mapped = CompressionFactory.openMappedZip(Helper.getZipBigFile())) {
+                var name = Helper.getPlainBigFile().getFileName().toString();
+                mapped.unpack(name, destination);
+                Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(name)));
+            }
+        }
+
+        @Test
+        void all() throws Exception {
+            var expected = Files.createTempDirectory("zip");
+            var destination = Files.createTempDirectory("zip");
+            try (var mapped = CompressionFactory.openMappedZip(Helper.getZipMultipleFiles());
+                 var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                handle.unpack(expected);
+                mapped.unpack(destination);
+                for (var entry : handle.entries()) {
+                    if (!entry.endsWith("/")) {
+                        Assertions.assertEquals(-1L, Files.mismatch(expected.resolve(entry), destination.resolve(entry)));
+                    }
+                }
+            }
+        }
+
+        @Test
+        void notExisting() throws Exception {
+            var destination = Files.createTempDirectory("zip");
+            try (var mapped = CompressionFactory.openMappedZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> mapped.unpack("zip-folder-1/anything.txt", destination));
+            }
+        }
+    }
+
+    @Nested
+    class StoredContent {
+
+        @Test
+        void stored() throws Exception {
+            var archive = createStored("stored.txt", "stored content");
+            try (var mapped = CompressionFactory.openMappedZip(archive)) {
+                var content = mapped.storedContent("stored.txt").orElseThrow();
+                var bytes = new byte[content.remaining()];
+                content.get(bytes);
+                Assertions.assertEquals("stored content", new String(bytes, StandardCharsets.UTF_8));
+                Assertions.assertTrue(content.isReadOnly());
+            }
+        }
+
+        @Test
+        void deflated() {
+            try (var mapped = CompressionFactory.openMappedZip(Helper.getZipBigFile())) {
+                Assertions.assertTrue(mapped.storedContent(Helper.getPlainBigFile().getFileName().toString()).isEmpty());
+            }
+        }
+
+        @Test
+        void notExisting() {
+            try (var mapped = CompressionFactory.openMappedZip(Helper.getZipBigFile())) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> mapped.storedContent("anything.txt"));
+            }
+        }
+
+        private Path createStored(String name, String content) throws Exception {
+            var archive = Files.createTempFile("stored", ".zip");
+            var data = content.getBytes(StandardCharsets.UTF_8);
+            var crc = new CRC32();
+            crc.update(data);
+            try (var zos = new ZipOutputStream(Files.newOutputStream(archive))) {
+                var entry = new ZipEntry(name);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(data.length);
+                entry.setCompressedSize(data.length);
+                entry.setCrc(crc.getValue());
+                zos.putNextEntry(entry);
+                zos.write(data);
+                zos.closeEntry();
+            }
+            return archive;
+        }
+    }
+
+    @Nested
+    class GetFileInfo {
+
+        @Test
+        void sameAsZipFile() {
+            try (var mapped = CompressionFactory.openMappedZip(Helper.getZipMultipleFiles());
+                 var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertEquals(handle.getFileInfo(Algorithm.MD5, Algorithm.SHA1), mapped.getFileInfo(Algorithm.MD5, Algorithm.SHA1));
+            }
+        }
+    }
+
+    @Test
+    void invalidArchive() throws Exception {
+        var file = Files.createTempFile("invalid", ".zip");
+        Files.writeString(file, "not a zip file");
+        Assertions.assertThrows(IllegalStateException.class, () -> CompressionFactory.openMappedZip(file));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.zip;
+
+import be.yildizgames.common.compression.CompressionFactory;
+import be.yildizgames.common.compression.Helper;
+import be.yildizgames.common.hashing.Algorithm;
+import be.yildizgames.common.hashing.HashingFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class ZipArchiveHandleTest {
+
+    @Nested
+    class Contains {
+
+        @Test
+        void existing() {
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertTrue(handle.contains("zip-folder-1/zip-file-1.txt"));
+            }
+        }
+
+        @Test
+        void notExisting() {
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertFalse(handle.contains("zip-folder-1/anything.txt"));
+            }
+        }
+
+        @Test
+        void directory() {
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertFalse(handle.contains("zip-folder-1"));
+                Assertions.assertFalse(handle.contains("zip-folder-1/"));
+            }
+        }
+    }
+
+    @Nested
+    class Unpack {
+
+        @Test
+        void happyFlow() throws Exception {
+            var destination = Files.createTempDirectory("zip");
+            try (var handle = CompressionFactory.openZip(Helper.getZipBigFile())) {
+                var name = Helper.getPlainBigFile().getFileName().toString();
+                handle.unpack(name, destination);
+                Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve(name)));
+            }
+        }
+
+        @Test
+        void severalCalls() throws Exception {
+            var destination1 = Files.createTempDirectory("zip");
+            var destination2 = Files.createTempDirectory("zip");
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                handle.unpack("zip-folder-1/zip-file-1.txt", destination1);
+                handle.unpack("zip-folder-1/zip-file-1.txt", destination2);
+            }
+            Assertions.assertTrue(Files.exists(destination1.resolve("zip-folder-1").resolve("zip-file-1.txt")));
+            Assertions.assertTrue(Files.exists(destination2.resolve("zip-folder-1").resolve("zip-file-1.txt")));
+        }
+
+        @Test
+        void notExisting() throws Exception {
+            var destination = Files.createTempDirectory("zip");
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> handle.unpack("anything.txt", destination));
+            }
+        }
+
+        @Test
+        void directoryName() throws Exception {
+            var destination = Files.createTempDirectory("zip");
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> handle.unpack("zip-folder-1", destination));
+            }
+            Assertions.assertFalse(Files.exists(destination.resolve("zip-folder-1")));
+        }
+    }
+
+    @Nested
+    class UnpackAll {
+
+        @Test
+        void happyFlow() throws Exception {
+            var destination = Files.createTempDirectory("zip");
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                handle.unpack(destination);
+            }
+            Assertions.assertTrue(Files.exists(destination.resolve("zip-folder-1").resolve("zip-file-1.txt")));
+        }
+
+        @Test
+        void directory() throws Exception {
+            var destination = Files.createTempDirectory("zip");
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                handle.unpackDirectoryToDirectory("zip-folder-1", destination);
+            }
+            Assertions.assertTrue(Files.exists(destination.resolve("zip-folder-1").resolve("zip-file-1.txt")));
+        }
+    }
+
+    @Nested
+    class Entries {
+
+        @Test
+        void happyFlow() {
+            try (var handle = CompressionFactory.openZip(Helper.getZipMultipleFiles())) {
+                Assertions.assertTrue(handle.entries().contains("zip-folder-1/zip-file-1.txt"));
+            }
+        }
+    }
+
+    @Nested
+    class GetFileInfo {
+
+        @Test
+        void happyFlow() {
+            var crc = HashingFactory.get(Algorithm.CRC32).compute(Helper.getPlainBigFile());
+            var md5 = HashingFactory.get(Algorithm.MD5).compute(Helper.getPlainBigFile());
+            try (var handle = CompressionFactory.openZip(Helper.getZipBigFile())) {
+                var first = handle.getFileInfo(Algorithm.CRC32, Algorithm.MD5);
+                var second = handle.getFileInfo(Algorithm.CRC32, Algorithm.MD5);
+                Assertions.assertEquals(crc, first.get(0).hashes().get(0));
+                Assertions.assertEquals(md5, first.get(0).hashes().get(1));
+                Assertions.assertEquals(first, second);
+            }
+        }
+    }
+
+    @Test
+    void archiveNotExisting() {
+        var archive = Path.of("anything.zip");
+        Assertions.assertThrows(IllegalStateException.class, () -> CompressionFactory.openZip(archive));
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.zip;
+
+import be.yildizgames.common.compression.ArchiveMerger;
+import be.yildizgames.common.compression.CompressionOptions;
+import be.yildizgames.common.compression.Helper;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipShort;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class ZipArchiverTest {
+
+    @Nested
+    class Pack {
+
+        @Test
+        void singleFile() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-singleFile", ".zip");
+            new ZipArchiver().pack(Helper.getPlainBigFile(), result);
+            assertUnpacked(result, Helper.getPlainBigFile().getFileName().toString(), Helper.getPlainBigFile());
+        }
+
+        @Test
+        void directory() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-directory", ".zip");
+            new ZipArchiver().pack(createDirectory(), result);
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHashFile());
+        }
+
+        @Test
+        void multipleFiles() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-multipleFiles", ".zip");
+            new ZipArchiver().pack(List.of(Helper.getPlainTestHashFile(), Helper.getPlainTestHash2File(), createDirectory()), result);
+            assertUnpacked(result, "test-hash.txt", Helper.getPlainTestHashFile());
+            assertUnpacked(result, "test-hash2.txt", Helper.getPlainTestHash2File());
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHashFile());
+        }
+
+        @Test
+        void nonExistingFile() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-nonExistingFile", ".zip");
+            var archiver = new ZipArchiver();
+            var files = List.of(Helper.getPlainTestHashFile(), Path.of("anything"));
+            Assertions.assertThrows(IllegalStateException.class, () -> archiver.pack(files, result));
+        }
+    }
+
+    @Nested
+    class PackParallel {
+
+        @Test
+        void singleFile() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-parallel-singleFile", ".zip");
+            new ZipArchiver(4).pack(Helper.getPlainBigFile(), result);
+            assertUnpacked(result, Helper.getPlainBigFile().getFileName().toString(), Helper.getPlainBigFile());
+        }
+
+        @Test
+        void directory() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-parallel-directory", ".zip");
+            new ZipArchiver(4).pack(createDirectory(), result);
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHashFile());
+            assertUnpacked(result, "dir/" + Helper.getPlainBigFile().getFileName(), Helper.getPlainBigFile());
+        }
+
+        @Test
+        void multipleFiles() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-parallel-multipleFiles", ".zip");
+            new ZipArchiver(4).pack(List.of(Helper.getPlainTestHashFile(), createDirectory()), result);
+            assertUnpacked(result, "test-hash.txt", Helper.getPlainTestHashFile());
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHashFile());
+        }
+
+        @Test
+        void invalidThreadNumber() {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new ZipArchiver(0));
+        }
+    }
+
+    @Nested
+    class PackWithOptions {
+
+        @Test
+        void store() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-store", ".zip");
+            new ZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE)).pack(createDirectory(), result);
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHashFile());
+            assertMethod(result, ZipEntry.STORED);
+        }
+
+        @Test
+        void storeParallel() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-store-parallel", ".zip");
+            new ZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE).withThreads(4)).pack(createDirectory(), result);
+            assertUnpacked(result, "dir/" + Helper.getPlainBigFile().getFileName(), Helper.getPlainBigFile());
+            assertMethod(result, ZipEntry.STORED);
+        }
+
+        @Test
+        void levelChangesSize() throws Exception {
+            var fast = Files.createTempFile("test-ZipArchiverTest-level1", ".zip");
+            var best = Files.createTempFile("test-ZipArchiverTest-level9", ".zip");
+            var options = CompressionOptions.defaults().withIncompressibleDetection(CompressionOptions.IncompressibleDetection.NONE);
+            new ZipArchiver(options.withLevel(0)).pack(Helper.getPlainBigFile(), fast);
+            new ZipArchiver(options.withLevel(9)).pack(Helper.getPlainBigFile(), best);
+            assertUnpacked(best, Helper.getPlainBigFile().getFileName().toString(), Helper.getPlainBigFile());
+            Assertions.assertTrue(Files.size(best) < Files.size(fast));
+        }
+
+        @Test
+        void incompressibleStored() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-incompressible", ".zip");
+            new ZipArchiver().pack(List.of(Helper.getPlainBigFile(), Helper.getPlainTestHashFile()), result);
+            assertUnpacked(result, Helper.getPlainBigFile().getFileName().toString(), Helper.getPlainBigFile());
+            assertEntryMethod(result, Helper.getPlainBigFile().getFileName().toString(), ZipEntry.STORED);
+            assertEntryMethod(result, "test-hash.txt", ZipEntry.DEFLATED);
+        }
+
+        @Test
+        void incompressibleStoredParallel() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-incompressible-parallel", ".zip");
+            new ZipArchiver(4).pack(List.of(Helper.getPlainBigFile(), Helper.getPlainTestHashFile()), result);
+            assertUnpacked(result, Helper.getPlainBigFile().getFileName().toString(), Helper.getPlainBigFile());
+            assertEntryMethod(result, Helper.getPlainBigFile().getFileName().toString(), ZipEntry.STORED);
+            assertEntryMethod(result, "test-hash.txt", ZipEntry.DEFLATED);
+        }
+
+        @Test
+        void incompressibleDetectionDisabled() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-incompressible-disabled", ".zip");
+            new ZipArchiver(CompressionOptions.defaults().withIncompressibleDetection(CompressionOptions.IncompressibleDetection.NONE))
+                    .pack(Helper.getPlainBigFile(), result);
+            assertEntryMethod(result, Helper.getPlainBigFile().getFileName().toString(), ZipEntry.DEFLATED);
+        }
+
+        @Test
+        void unsupportedMethod() {
+            var options = CompressionOptions.defaults().withMethod(CompressionOptions.Method.LZMA2);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new ZipArchiver(options));
+        }
+    }
+
+    @Nested
+    class PackToStream {
+
+        @Test
+        void deflate() throws Exception {
+            var result = toFile(new ZipArchiver(), createDirectory());
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHashFile());
+            assertEntryMethod(result, "dir/sub/test-hash.txt", ZipEntry.DEFLATED);
+        }
+
+        @Test
+        void store() throws Exception {
+            var result = toFile(new ZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE)), createDirectory());
+            assertUnpacked(result, "dir/" + Helper.getPlainBigFile().getFileName(), Helper.getPlainBigFile());
+            assertMethod(result, ZipEntry.STORED);
+        }
+
+        @Test
+        void incompressibleStored() throws Exception {
+            var result = toFile(new ZipArchiver(), createDirectory());
+            assertUnpacked(result, "dir/" + Helper.getPlainBigFile().getFileName(), Helper.getPlainBigFile());
+            assertEntryMethod(result, "dir/" + Helper.getPlainBigFile().getFileName(), ZipEntry.STORED);
+        }
+
+        @Test
+        void parallel() throws Exception {
+            var result = toFile(new ZipArchiver(4), createDirectory());
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHashFile());
+            assertUnpacked(result, "dir/" + Helper.getPlainBigFile().getFileName(), Helper.getPlainBigFile());
+        }
+
+        @Test
+        void channel() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-channel", ".zip");
+            try (var channel = FileChannel.open(result, StandardOpenOption.WRITE)) {
+                new ZipArchiver().pack(List.of(Helper.getPlainTestHashFile()), channel);
+                Assertions.assertTrue(channel.isOpen());
+            }
+            assertUnpacked(result, Helper.getPlainTestHashFile().getFileName().toString(), Helper.getPlainTestHashFile());
+        }
+
+        @Test
+        void zip64ForBigFile() throws Exception {
+            var bigFile = new File(Helper.getPlainTestHashFile().toString()) {
+                @Override
+                public long length() {
+                    return 5L << 30;
+                }
+            };
+            var entry = new ZipArchiveEntry("big.bin");
+            entry.setMethod(ZipEntry.DEFLATED);
+            ZipArchiver.prepareForStream(entry, bigFile);
+            var zos = new ZipArchiveOutputStream(new ByteArrayOutputStream());
+            Assertions.assertFalse(zos.isSeekable());
+            zos.putArchiveEntry(entry);
+            Assertions.assertNotNull(entry.getExtraField(new ZipShort(0x0001)));
+        }
+
+        @Test
+        void streamNotClosed() throws Exception {
+            var closed = new boolean[1];
+            OutputStream out = new FilterOutputStream(new ByteArrayOutputStream()) {
+                @Override
+                public void close() throws IOException {
+                    closed[0] = true;
+                    super.close();
+                }
+            };
+            new ZipArchiver().pack(List.of(Helper.getPlainTestHashFile()), out);
+            Assertions.assertFalse(closed[0]);
+        }
+
+        private Path toFile(ZipArchiver archiver, Path root) throws Exception {
+            var out = new ByteArrayOutputStream();
+            archiver.pack(List.of(root), out);
+            var result = Files.createTempFile("test-ZipArchiverTest-stream", ".zip");
+            Files.write(result, out.toByteArray());
+            return result;
+        }
+    }
+
+    @Nested
+    class Update {
+
+        @Test
+        void replaceAndAppend() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-update", ".zip");
+            new ZipArchiver().pack(createDirectory(), result);
+            var bigEntry = "dir/" + Helper.getPlainBigFile().getFileName();
+            long bigCrc;
+            try (var zip = new ZipFile(result.toFile())) {
+                bigCrc = zip.getEntry(bigEntry).getCrc();
+            }
+            var replacement = Files.createTempDirectory("test-ZipArchiverTest-update-new").resolve("dir");
+            Files.createDirectories(replacement.resolve("sub"));
+            Files.copy(Helper.getPlainTestHash2File(), replacement.resolve("sub").resolve("test-hash.txt"));
+            Files.copy(Helper.getPlainTestHashFile(), replacement.resolve("added.txt"));
+            new ZipArchiver().update(result, List.of(replacement));
+            try (var zip = new ZipFile(result.toFile())) {
+                Assertions.assertEquals(3, zip.size());
+                Assertions.assertEquals(bigCrc, zip.getEntry(bigEntry).getCrc());
+                Assertions.assertEquals(ZipEntry.STORED, zip.getEntry(bigEntry).getMethod());
+            }
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHash2File());
+            assertUnpacked(result, "dir/added.txt", Helper.getPlainTestHashFile());
+            assertUnpacked(result, bigEntry, Helper.getPlainBigFile());
+        }
+
+        @Test
+        void singleFile() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-update-file", ".zip");
+            new ZipArchiver().pack(Helper.getPlainTestHashFile(), result);
+            new ZipArchiver(CompressionOptions.defaults().withMethod(CompressionOptions.Method.STORE)).update(result, List.of(Helper.getPlainTestHash2File()));
+            assertUnpacked(result, Helper.getPlainTestHashFile().getFileName().toString(), Helper.getPlainTestHashFile());
+            assertUnpacked(result, Helper.getPlainTestHash2File().getFileName().toString(), Helper.getPlainTestHash2File());
+            assertEntryMethod(result, Helper.getPlainTestHashFile().getFileName().toString(), ZipEntry.DEFLATED);
+            assertEntryMethod(result, Helper.getPlainTestHash2File().getFileName().toString(), ZipEntry.STORED);
+        }
+
+        @Test
+        void permissionsKept() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-update-permissions", ".zip");
+            Assumptions.assumeTrue(Files.getFileAttributeView(result, PosixFileAttributeView.class) != null);
+            new ZipArchiver().pack(Helper.getPlainTestHashFile(), result);
+            var permissions = PosixFilePermissions.fromString("rw-r--r--");
+            Files.setPosixFilePermissions(result, permissions);
+            new ZipArchiver().update(result, List.of(Helper.getPlainTestHash2File()));
+            Assertions.assertEquals(permissions, Files.getPosixFilePermissions(result));
+        }
+
+        @Test
+        void commentKept() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-update-comment", ".zip");
+            try (var zos = new ZipArchiveOutputStream(result)) {
+                zos.setComment("archive comment");
+                var entry = new ZipArchiveEntry(Helper.getPlainTestHashFile().getFileName().toString());
+                zos.putArchiveEntry(entry);
+                zos.write(Files.readAllBytes(Helper.getPlainTestHashFile()));
+                zos.closeArchiveEntry();
+            }
+            new ZipArchiver().update(result, List.of(Helper.getPlainTestHash2File()));
+            try (var zip = new ZipFile(result.toFile())) {
+                Assertions.assertEquals("archive comment", zip.getComment());
+                Assertions.assertEquals(2, zip.size());
+            }
+        }
+
+        @Test
+        void archiveNotExisting() throws Exception {
+            var directory = Files.createTempDirectory("test-ZipArchiverTest-update-missing");
+            var archive = directory.resolve("missing.zip");
+            var archiver = new ZipArchiver();
+            var files = List.of(Helper.getPlainTestHashFile());
+            Assertions.assertThrows(IllegalStateException.class, () -> archiver.update(archive, files));
+            try (var content = Files.list(directory)) {
+                Assertions.assertEquals(0L, content.count());
+            }
+        }
+    }
+
+    @Nested
+    class Merge {
+
+        @Test
+        void distinctEntries() throws Exception {
+            var first = Files.createTempFile("test-ZipArchiverTest-merge-1", ".zip");
+            var second = Files.createTempFile("test-ZipArchiverTest-merge-2", ".zip");
+            var result = Files.createTempFile("test-ZipArchiverTest-merge", ".zip");
+            new ZipArchiver().pack(createDirectory(), first);
+            new ZipArchiver().pack(Helper.getPlainTestHash2File(), second);
+            new ZipArchiver().merge(List.of(first, second), result, ArchiveMerger.CollisionPolicy.FAIL);
+            try (var zip = new ZipFile(result.toFile())) {
+                Assertions.assertEquals(3, zip.size());
+            }
+            assertUnpacked(result, "dir/sub/test-hash.txt", Helper.getPlainTestHashFile());
+            assertUnpacked(result, "dir/" + Helper.getPlainBigFile().getFileName(), Helper.getPlainBigFile());
+            assertUnpacked(result, Helper.getPlainTestHash2File().getFileName().toString(), Helper.getPlainTestHash2File());
+        }
+
+        @Test
+        void destinationIsSource() throws Exception {
+            var first = Files.createTempFile("test-ZipArchiverTest-merge-self-1", ".zip");
+            var second = Files.createTempFile("test-ZipArchiverTest-merge-self-2", ".zip");
+            new ZipArchiver().pack(createDirectory(), first);
+            new ZipArchiver().pack(Helper.getPlainTestHash2File(), second);
+            new ZipArchiver().merge(List.of(first, second), first, ArchiveMerger.CollisionPolicy.FAIL);
+            try (var zip = new ZipFile(first.toFile())) {
+                Assertions.assertEquals(3, zip.size());
+            }
+            assertUnpacked(first, "dir/" + Helper.getPlainBigFile().getFileName(), Helper.getPlainBigFile());
+            assertUnpacked(first, Helper.getPlainTestHash2File().getFileName().toString(), Helper.getPlainTestHash2File());
+        }
+
+        @Test
+        void keepFirst() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-merge-first", ".zip");
+            new ZipArchiver().merge(colliding(), result, ArchiveMerger.CollisionPolicy.KEEP_FIRST);
+            try (var zip = new ZipFile(result.toFile())) {
+                Assertions.assertEquals(1, zip.size());
+            }
+            assertUnpacked(result, "same.txt", Helper.getPlainTestHashFile());
+        }
+
+        @Test
+        void keepLast() throws Exception {
+            var result = Files.createTempFile("test-ZipArchiverTest-merge-last", ".zip");
+            new ZipArchiver().merge(colliding(), result, ArchiveMerger.CollisionPolicy.KEEP_LAST);
+            try (var zip = new ZipFile(result.toFile())) {
+                Assertions.assertEquals(1, zip.size());
+            }
+            assertUnpacked(result, "same.txt", Helper.getPlainTestHash2File());
+        }
+
+        @Test
+        void fail() throws Exception {
+            var result = Files.createTempDirectory("test-ZipArchiverTest-merge-fail").resolve("merged.zip");
+            var archiver = new ZipArchiver();
+            var archives = colliding();
+            Assertions.assertThrows(IllegalArgumentException.class, () -> archiver.merge(archives, result, ArchiveMerger.CollisionPolicy.FAIL));
+            Assertions.assertFalse(Files.exists(result));
+        }
+
+        @Test
+        void archiveNotExisting() {
+            var archiver = new ZipArchiver();
+            var archives = List.of(Path.of("anything.zip"));
+            Assertions.assertThrows(IllegalStateException.class, () -> archiver.merge(archives, Path.of("merged.zip"), ArchiveMerger.CollisionPolicy.FAIL));
+        }
+
+        private List<Path> colliding() throws Exception {
+            var first = Files.createTempDirectory("test-ZipArchiverTest-merge-first").resolve("same.txt");
+            var second = Files.createTempDirectory("test-ZipArchiverTest-merge-second").resolve("same.txt");
+            Files.copy(Helper.getPlainTestHashFile(), first);
+            Files.copy(Helper.getPlainTestHash2File(), second);
+            var firstArchive = Files.createTempFile("test-ZipArchiverTest-merge-first", ".zip");
+            var secondArchive = Files.createTempFile("test-ZipArchiverTest-merge-second", ".zip");
+            new ZipArchiver().pack(first, firstArchive);
+            new ZipArchiver().pack(second, secondArchive);
+            return List.of(firstArchive, secondArchive);
+        }
+    }
+
+    private static void assertMethod(Path archive, int method) throws Exception {
+        try (var zip = new ZipFile(archive.toFile())) {
+            Assertions.assertTrue(zip.stream().allMatch(e -> e.getMethod() == method));
+        }
+    }
+
+    private static void assertEntryMethod(Path archive, String entry, int method) throws Exception {
+        try (var zip = new ZipFile(archive.toFile())) {
+            Assertions.assertEquals(method, zip.getEntry(entry).getMethod());
+        }
+    }
+
+    private static Path createDirectory() throws Exception {
+        var root = Files.createTempDirectory("test-ZipArchiverTest").resolve("dir");
+        Files.createDirectories(root.resolve("sub"));
+        Files.copy(Helper.getPlainTestHashFile(), root.resolve("sub").resolve("test-hash.txt"));
+        Files.copy(Helper.getPlainBigFile(), root.resolve(Helper.getPlainBigFile().getFileName()));
+        return root;
+    }
+
+    private static void assertUnpacked(Path archive, String entry, Path expected) throws Exception {
+        var destination = Files.createTempDirectory("test-ZipArchiverTest-unpack");
+        new ZipUnpacker().unpack(archive, destination, true);
+        Assertions.assertEquals(-1L, Files.mismatch(expected, destination.resolve(entry)));
+    }
+}
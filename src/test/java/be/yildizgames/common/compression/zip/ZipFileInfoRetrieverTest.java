@@ -21,6 +21,13 @@ import be.yildizgames.common.hashing.HashingFactory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 /**
  * @author Grégory Van den Borre
  */
@@ -58,4 +65,49 @@ class ZipFileInfoRetrieverTest {
         Assertions.assertEquals(md51, fileInfo.get(0).hashes().get(1));
         Assertions.assertEquals(sha11, fileInfo.get(0).hashes().get(2));
     }
+
+    @Test
+    void testHashParallel() {
+        var crc1 = HashingFactory.get(Algorithm.CRC32).compute(Helper.getPlainTestHashFile());
+        var crc2 = HashingFactory.get(Algorithm.CRC32).compute(Helper.getPlainTestHash2File());
+        var sha11 = HashingFactory.get(Algorithm.SHA1).compute(Helper.getPlainTestHashFile());
+        var sha12 = HashingFactory.get(Algorithm.SHA1).compute(Helper.getPlainTestHash2File());
+
+        var fileInfo = new ZipFileInfoRetriever(Helper.getZipTestHashFile(), ForkJoinPool.commonPool()).getFileInfo(Algorithm.CRC32, Algorithm.SHA1);
+
+        Assertions.assertEquals(crc1, fileInfo.get(0).hashes().get(0));
+        Assertions.assertEquals(sha11, fileInfo.get(0).hashes().get(1));
+
+        Assertions.assertEquals(crc2, fileInfo.get(1).hashes().get(0));
+        Assertions.assertEquals(sha12, fileInfo.get(1).hashes().get(1));
+    }
+
+    @Test
+    void testNoAlgorithm() {
+        var fileInfo = new ZipFileInfoRetriever(Helper.getZipTestHashFile()).getFileInfo();
+        Assertions.assertEquals(2, fileInfo.size());
+        Assertions.assertTrue(fileInfo.get(0).hashes().isEmpty());
+    }
+
+    @Test
+    void testHashParallelCorruptedEntry() throws Exception {
+        var archive = Files.createTempFile("test-ZipFileInfoRetrieverTest-corrupted", ".zip");
+        try (var zos = new ZipOutputStream(Files.newOutputStream(archive))) {
+            zos.putNextEntry(new ZipEntry("a.txt"));
+            zos.write("corrupted content corrupted content".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            for (int i = 0; i < 8; i++) {
+                zos.putNextEntry(new ZipEntry("file-" + i + ".jpg"));
+                Files.copy(Helper.getPlainBigFile(), zos);
+                zos.closeEntry();
+            }
+        }
+        var bytes = Files.readAllBytes(archive);
+        // Data of the first entry starts after its 30 bytes local header and its 5 bytes name, 0xFF is an invalid block type.
+        bytes[35] = (byte) 0xFF;
+        Files.write(archive, bytes);
+        var retriever = new ZipFileInfoRetriever(archive, ForkJoinPool.commonPool());
+        var e = Assertions.assertThrows(IllegalStateException.class, () -> retriever.getFileInfo(Algorithm.CRC32, Algorithm.SHA1));
+        Assertions.assertTrue(e.getCause() instanceof IOException);
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ Copyright (c) 2024-2024 Grégory Van den Borre
+ More infos available: https://engine.yildiz-games.be
+ Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ permit persons to whom the Software is furnished to do so, subject to the following conditions: The above copyright
+ notice and this permission notice shall be included in all copies or substantial portions of the  Software.
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.yildizgames.common.compression.zip;
+
+import be.yildizgames.common.compression.CompressionFactory;
+import be.yildizgames.common.compression.Helper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @author Grégory Van den Borre
+ */
+class ZipStreamUnpackerTest {
+
+    @Nested
+    class Unpack {
+
+        @Test
+        void fromStream() throws IOException {
+            var destination = Files.createTempDirectory("test-ZipStreamUnpackerTest-stream");
+            var expected = Files.createTempDirectory("test-ZipStreamUnpackerTest-expected");
+            CompressionFactory.zipUnpacker().unpack(Helper.getZipMultipleFiles(), expected, true);
+            try (var in = Files.newInputStream(Helper.getZipMultipleFiles())) {
+                CompressionFactory.zipStreamUnpacker().unpack(in, destination);
+            }
+            var file = expected.relativize(expected.resolve("zip-folder-1").resolve("zip-file-1.txt"));
+            Assertions.assertEquals(-1L, Files.mismatch(expected.resolve(file), destination.resolve(file)));
+        }
+
+        @Test
+        void fromChannel() throws IOException {
+            var destination = Files.createTempDirectory("test-ZipStreamUnpackerTest-channel");
+            try (var channel = FileChannel.open(Helper.getZipMultipleFiles())) {
+                CompressionFactory.zipStreamUnpacker().unpack(channel, destination);
+                Assertions.assertTrue(channel.isOpen());
+            }
+            Assertions.assertTrue(Files.exists(destination.resolve("zip-folder-1").resolve("zip-file-1.txt")));
+        }
+
+        @Test
+        void dataDescriptor() throws IOException {
+            var content = Files.readAllBytes(Helper.getPlainBigFile());
+            var bytes = new ByteArrayOutputStream();
+            try (var zos = new ZipOutputStream(bytes)) {
+                zos.putNextEntry(new ZipEntry("dir/big.jpg"));
+                zos.write(content);
+                zos.closeEntry();
+                zos.putNextEntry(new ZipEntry("small.txt"));
+                zos.write("small".getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+            var destination = Files.createTempDirectory("test-ZipStreamUnpackerTest-descriptor");
+            CompressionFactory.zipStreamUnpacker().unpack(new ByteArrayInputStream(bytes.toByteArray()), destination);
+            Assertions.assertArrayEquals(content, Files.readAllBytes(destination.resolve("dir/big.jpg")));
+            Assertions.assertEquals("small", Files.readString(destination.resolve("small.txt")));
+        }
+
+        @Test
+        void streamNotClosed() throws IOException {
+            var closed = new boolean[1];
+            try (InputStream in = new FilterInputStream(Files.newInputStream(Helper.getZipMultipleFiles())) {
+                @Override
+                public void close() throws IOException {
+                    closed[0] = true;
+                    super.close();
+                }
+            }) {
+                CompressionFactory.zipStreamUnpacker().unpack(in, Files.createTempDirectory("test-ZipStreamUnpackerTest-close"));
+                Assertions.assertFalse(closed[0]);
+            }
+        }
+
+        @Test
+        void entryOutsideDestination() throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            try (var zos = new ZipOutputStream(bytes)) {
+                zos.putNextEntry(new ZipEntry("../outside.txt"));
+                zos.write(1);
+                zos.closeEntry();
+            }
+            var destination = Files.createTempDirectory("test-ZipStreamUnpackerTest-outside");
+            var unpacker = CompressionFactory.zipStreamUnpacker();
+            var in = new ByteArrayInputStream(bytes.toByteArray());
+            Assertions.assertThrows(IllegalStateException.class, () -> unpacker.unpack(in, destination));
+        }
+
+        @Test
+        void truncated() throws IOException {
+            var content = Files.readAllBytes(Helper.getZipBigFile());
+            var destination = Files.createTempDirectory("test-ZipStreamUnpackerTest-truncated");
+            var unpacker = CompressionFactory.zipStreamUnpacker();
+            var in = new ByteArrayInputStream(content, 0, content.length / 2);
+            Assertions.assertThrows(IllegalStateException.class, () -> unpacker.unpack(in, destination));
+        }
+    }
+}
@@ -23,9 +23,15 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * @author Grégory Van den Borre
@@ -67,6 +73,36 @@ class ZipUnpackerTest {
         }
     }
 
+    @Nested
+    class ExtractFilesParallel {
+
+        @Test
+        void happyFlow() throws IOException {
+            Unpacker unpacker = CompressionFactory.zipUnpacker(ForkJoinPool.commonPool());
+            Path zip = getDestinationPath();
+            unpacker.unpack(Helper.getZipMultipleFiles(), zip, true);
+            Assertions.assertTrue(Files.exists(zip.resolve("zip-folder-1").resolve("zip-file-1.txt")));
+        }
+
+        @Test
+        void sameContentAsSequential() throws IOException {
+            Path sequential = getDestinationPath();
+            Path parallel = getDestinationPath();
+            CompressionFactory.zipUnpacker().unpack(Helper.getZipBigFile(), sequential, true);
+            CompressionFactory.zipUnpacker(ForkJoinPool.commonPool()).unpack(Helper.getZipBigFile(), parallel, true);
+            Path file = Helper.getPlainBigFile().getFileName();
+            Assertions.assertEquals(-1L, Files.mismatch(sequential.resolve(file), parallel.resolve(file)));
+        }
+
+        @Test
+        void ZipFileNotExisting() throws IOException {
+            Unpacker unpacker = CompressionFactory.zipUnpacker(ForkJoinPool.commonPool());
+            var zip = getDestinationPath();
+            var anything = Paths.get("anything");
+            Assertions.assertThrows(IllegalStateException.class, () -> unpacker.unpack(anything, zip, true));
+        }
+    }
+
     @Nested
     class UnpackDirectoryToDirectory {
 
@@ -96,6 +132,154 @@ class ZipUnpackerTest {
     }
 
 
+    @Nested
+    class ExtractStoredFiles {
+
+        @Test
+        void happyFlow() throws IOException {
+            Path archive = createStoredArchive();
+            Path destination = getDestinationPath();
+            CompressionFactory.zipUnpacker().unpack(archive, destination, true);
+            Assertions.assertEquals("stored content", Files.readString(destination.resolve("stored").resolve("stored.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve("deflated.txt")));
+        }
+
+        @Test
+        void parallel() throws IOException {
+            Path archive = createStoredArchive();
+            Path destination = getDestinationPath();
+            CompressionFactory.zipUnpacker(ForkJoinPool.commonPool()).unpack(archive, destination, true);
+            Assertions.assertEquals("stored content", Files.readString(destination.resolve("stored").resolve("stored.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve("deflated.txt")));
+        }
+
+        @Test
+        void singleFile() throws IOException {
+            Path archive = createStoredArchive();
+            Path destination = getDestinationPath();
+            Files.createDirectories(destination.resolve("stored"));
+            Files.writeString(destination.resolve("stored").resolve("stored.txt"), "previous content which is longer");
+            CompressionFactory.zipUnpacker().unpack(archive, "stored/stored.txt", destination);
+            Assertions.assertEquals("stored content", Files.readString(destination.resolve("stored").resolve("stored.txt")));
+        }
+
+        @Test
+        void encodedPath() throws IOException {
+            Path archive = createStoredArchive();
+            Path renamed = Files.move(archive, archive.resolveSibling("stored " + archive.getFileName()));
+            Path destination = getDestinationPath();
+            CompressionFactory.zipUnpacker().unpack(archive.resolveSibling("stored%20" + archive.getFileName()), destination, true);
+            Assertions.assertTrue(Files.exists(renamed));
+            Assertions.assertEquals("stored content", Files.readString(destination.resolve("stored").resolve("stored.txt")));
+        }
+
+        @Test
+        void prependedData() throws IOException {
+            Path archive = createStoredArchive();
+            Path selfExtracting = Files.createTempFile("stored-sfx", ".exe");
+            try (var out = Files.newOutputStream(selfExtracting)) {
+                out.write(new byte[4096]);
+                Files.copy(archive, out);
+            }
+            Path destination = getDestinationPath();
+            CompressionFactory.zipUnpacker().unpack(selfExtracting, destination, true);
+            Assertions.assertEquals("stored content", Files.readString(destination.resolve("stored").resolve("stored.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve("deflated.txt")));
+        }
+
+        @Test
+        void singleFileDirectoryName() throws IOException {
+            Path archive = createStoredArchive();
+            Path destination = getDestinationPath();
+            CompressionFactory.zipUnpacker().unpack(archive, "stored", destination);
+            Assertions.assertFalse(Files.exists(destination.resolve("stored")));
+        }
+
+        @Test
+        void directory() throws IOException {
+            Path archive = createStoredArchive();
+            Path destination = getDestinationPath();
+            CompressionFactory.zipUnpacker().unpackDirectoryToDirectory(archive, "stored", destination);
+            Assertions.assertEquals("stored content", Files.readString(destination.resolve("stored").resolve("stored.txt")));
+        }
+
+        private Path createStoredArchive() throws IOException {
+            Path archive = Files.createTempFile("stored", ".zip");
+            byte[] data = "stored content".getBytes(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(archive))) {
+                zos.putNextEntry(new ZipEntry("stored/"));
+                zos.closeEntry();
+                ZipEntry entry = new ZipEntry("stored/stored.txt");
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(data.length);
+                entry.setCompressedSize(data.length);
+                entry.setCrc(crc.getValue());
+                zos.putNextEntry(entry);
+                zos.write(data);
+                zos.closeEntry();
+                zos.putNextEntry(new ZipEntry("deflated.txt"));
+                Files.copy(Helper.getPlainBigFile(), zos);
+                zos.closeEntry();
+            }
+            return archive;
+        }
+    }
+
+    @Nested
+    class Sync {
+
+        private final FileTime past = FileTime.fromMillis(1_000_000L);
+
+        @Test
+        void unchangedFileNotWritten() throws IOException {
+            Path archive = new ExtractStoredFiles().createStoredArchive();
+            Path destination = getDestinationPath();
+            CompressionFactory.zipUnpacker().sync(archive, destination, false);
+            Files.setLastModifiedTime(destination.resolve("deflated.txt"), this.past);
+            Files.writeString(destination.resolve("stored").resolve("stored.txt"), "stored contenT");
+            CompressionFactory.zipUnpacker().sync(archive, destination, false);
+            Assertions.assertEquals(this.past, Files.getLastModifiedTime(destination.resolve("deflated.txt")));
+            Assertions.assertEquals("stored content", Files.readString(destination.resolve("stored").resolve("stored.txt")));
+        }
+
+        @Test
+        void parallel() throws IOException {
+            Path archive = new ExtractStoredFiles().createStoredArchive();
+            Path destination = getDestinationPath();
+            CompressionFactory.zipUnpacker().sync(archive, destination, false);
+            Files.setLastModifiedTime(destination.resolve("stored").resolve("stored.txt"), this.past);
+            Files.write(destination.resolve("deflated.txt"), new byte[]{1, 2, 3});
+            CompressionFactory.zipUnpacker(ForkJoinPool.commonPool()).sync(archive, destination, false);
+            Assertions.assertEquals(this.past, Files.getLastModifiedTime(destination.resolve("stored").resolve("stored.txt")));
+            Assertions.assertEquals(-1L, Files.mismatch(Helper.getPlainBigFile(), destination.resolve("deflated.txt")));
+        }
+
+        @Test
+        void staleFilesDeleted() throws IOException {
+            Path archive = new ExtractStoredFiles().createStoredArchive();
+            Path destination = getDestinationPath();
+            Files.createDirectories(destination.resolve("old").resolve("sub"));
+            Files.writeString(destination.resolve("old").resolve("sub").resolve("old.txt"), "old");
+            Files.writeString(destination.resolve("old.txt"), "old");
+            CompressionFactory.zipUnpacker().sync(archive, destination, true);
+            Assertions.assertFalse(Files.exists(destination.resolve("old")));
+            Assertions.assertFalse(Files.exists(destination.resolve("old.txt")));
+            Assertions.assertEquals("stored content", Files.readString(destination.resolve("stored").resolve("stored.txt")));
+            Assertions.assertTrue(Files.exists(destination.resolve("deflated.txt")));
+        }
+
+        @Test
+        void staleFilesKept() throws IOException {
+            Path archive = new ExtractStoredFiles().createStoredArchive();
+            Path destination = getDestinationPath();
+            Files.writeString(destination.resolve("old.txt"), "old");
+            CompressionFactory.zipUnpacker().sync(archive, destination, false);
+            Assertions.assertTrue(Files.exists(destination.resolve("old.txt")));
+        }
+    }
+
     private static Path getDestinationPath() throws IOException {
         return Files.createTempDirectory("zip");
     }